@@ -39,7 +39,7 @@ public class ApiUtil {
     }
 
     public ApiUtil callApi(String description, Consumer<Response> runnable) {
-        LogUtil.info("Starting api call - " + description, this.getClass());
+        LogUtil.info("Starting api call - {}", this.getClass(), description);
         node = test.createNode(description);
         RestAssured.baseURI = baseURI;
         RequestSpecification requestSpec = getRequestSpec();
@@ -55,7 +55,7 @@ public class ApiUtil {
         };
         Objects.requireNonNull(response, "Response cannot be null at this point.");
         runnable.accept(response);
-        LogUtil.info("Done api call - " + description, this.getClass());
+        LogUtil.info("Done api call - {}", this.getClass(), description);
         return this;
     }
 
@@ -0,0 +1,152 @@
+package testauto.com.common;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConfigUtil {
+
+    private static final String ENV_PREFIX = "TESTAUTO_";
+    private static final String SYSTEM_PROPERTY_PREFIX = "testauto.";
+
+    private static final Map<Path, AtomicReference<Snapshot>> snapshots = new ConcurrentHashMap<>();
+    private static final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private static volatile WatchService watchService;
+
+    public static final class Snapshot {
+        private final Path source;
+        private final Map<String, String> values;
+
+        private Snapshot(Path source, Map<String, String> values){
+            this.source = source;
+            this.values = Map.copyOf(values);
+        }
+
+        public String get(String key){
+            String value = values.get(key);
+            if(value == null) throw new NoSuchElementException("No property key '" + key + "' exists in '" + source + "'.");
+            return value;
+        }
+
+        public String get(String key, String defaultValue){
+            return values.getOrDefault(key, defaultValue);
+        }
+
+        public boolean contains(String key){
+            return values.containsKey(key);
+        }
+
+        public Map<String, String> asMap(){
+            return values;
+        }
+    }
+
+    public static Snapshot getSnapshot(String propertiesFilePath) throws IOException {
+        if(propertiesFilePath == null || propertiesFilePath.isBlank()) throw new IllegalArgumentException("'propertiesFilePath' cannot be null or empty / blank.");
+        Path source = Paths.get(propertiesFilePath).toAbsolutePath().normalize();
+        AtomicReference<Snapshot> snapshot = snapshots.get(source);
+        if(snapshot != null) return snapshot.get();
+        try{
+            snapshot = snapshots.computeIfAbsent(source, path -> {
+                try{
+                    return new AtomicReference<>(parse(path));
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }catch (UncheckedIOException e){
+            LogUtil.logAndRethrow("Error while reading properties file '" + propertiesFilePath + "'.", ConfigUtil.class, e.getCause());
+        }
+        if(Boolean.getBoolean("config-watch")){
+            watch(source);
+        }
+        return snapshot.get();
+    }
+
+    private static Snapshot parse(Path source) throws IOException {
+        Properties properties = new Properties();
+        try(Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)){
+            properties.load(reader);
+        }
+        Map<String, String> values = new HashMap<>();
+        for(String key: properties.stringPropertyNames()){
+            values.put(key, properties.getProperty(key));
+        }
+
+        Map<String, String> environment = System.getenv();
+        for(String key: properties.stringPropertyNames()){
+            String value = environment.get(ENV_PREFIX + key.toUpperCase().replaceAll("[^A-Z0-9]", "_"));
+            if(value != null) values.put(key, value);
+        }
+
+        Properties systemProperties = System.getProperties();
+        for(String name: systemProperties.stringPropertyNames()){
+            if(name.startsWith(SYSTEM_PROPERTY_PREFIX)){
+                values.put(name.substring(SYSTEM_PROPERTY_PREFIX.length()), systemProperties.getProperty(name));
+            }
+        }
+
+        LogUtil.debug("Loaded {} properties from '{}'.", ConfigUtil.class, values.size(), source);
+        return new Snapshot(source, values);
+    }
+
+    private static void watch(Path source) throws IOException {
+        Path directory = source.getParent();
+        if(directory == null || !watchedDirectories.add(directory)) return;
+        synchronized (ConfigUtil.class){
+            if(watchService == null){
+                watchService = FileSystems.getDefault().newWatchService();
+                Thread watcher = new Thread(ConfigUtil::processWatchEvents, "config-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+        }
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        LogUtil.info("Watching '{}' for configuration changes.", ConfigUtil.class, directory);
+    }
+
+    private static void processWatchEvents(){
+        try{
+            while(true){
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                for(WatchEvent<?> event: key.pollEvents()){
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+                    Path changed = directory.resolve((Path) event.context());
+                    AtomicReference<Snapshot> snapshot = snapshots.get(changed);
+                    if(snapshot != null) reload(changed, snapshot);
+                }
+                key.reset();
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }catch (ClosedWatchServiceException ignored){
+        }
+    }
+
+    private static void reload(Path source, AtomicReference<Snapshot> snapshot){
+        try{
+            snapshot.set(parse(source));
+            LogUtil.info("Reloaded configuration '{}'.", ConfigUtil.class, source);
+        }catch (IOException | IllegalArgumentException e){
+            LogUtil.error("Couldn't reload configuration '" + source + "'. Keeping the previous values.", ConfigUtil.class, e);
+        }
+    }
+}
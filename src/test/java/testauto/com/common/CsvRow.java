@@ -0,0 +1,63 @@
+package testauto.com.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public final class CsvRow {
+
+    private final Map<String, Integer> columnIndexes;
+    private final String[] values;
+    private final long number;
+
+    CsvRow(Map<String, Integer> columnIndexes, String[] values, long number){
+        this.columnIndexes = columnIndexes;
+        this.values = values;
+        this.number = number;
+    }
+
+    public long getNumber(){
+        return number;
+    }
+
+    public int size(){
+        return values.length;
+    }
+
+    public String get(int columnIndex){
+        return columnIndex < values.length ? values[columnIndex] : "";
+    }
+
+    public String get(String columnName){
+        Integer columnIndex = columnIndexes.get(columnName.strip().toLowerCase(Locale.ROOT));
+        if(columnIndex == null) throw new NoSuchElementException("Column '" + columnName + "' not found.");
+        return get(columnIndex);
+    }
+
+    public int getInt(String columnName){
+        return Integer.parseInt(get(columnName).strip());
+    }
+
+    public long getLong(String columnName){
+        return Long.parseLong(get(columnName).strip());
+    }
+
+    public double getDouble(String columnName){
+        return Double.parseDouble(get(columnName).strip());
+    }
+
+    public boolean getBoolean(String columnName){
+        return Boolean.parseBoolean(get(columnName).strip());
+    }
+
+    public List<String> asList(){
+        return Arrays.asList(values);
+    }
+
+    @Override
+    public String toString(){
+        return "row " + number + " " + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,34 @@
+package testauto.com.common;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.ArgumentsProvider;
+import org.junit.jupiter.params.support.AnnotationConsumer;
+import org.junit.jupiter.params.support.ParameterDeclarations;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+public class CsvRowArgumentsProvider implements ArgumentsProvider, AnnotationConsumer<CsvRowSource> {
+
+    private CsvRowSource source;
+
+    @Override
+    public void accept(CsvRowSource source){
+        this.source = source;
+    }
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ParameterDeclarations parameters, ExtensionContext context) throws IOException {
+        int shardCount = Integer.getInteger("csv-shard-count", 1);
+        int shardIndex = Integer.getInteger("csv-shard-index", 0);
+        if(shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount){
+            throw new IllegalArgumentException("'csv-shard-index' must be between 0 and 'csv-shard-count' - 1, was " + shardIndex + " of " + shardCount + ".");
+        }
+        Stream<CsvRow> rows = CsvRows.stream(source.value(), source.header());
+        if(shardCount > 1){
+            rows = rows.filter(row -> row.getNumber() % shardCount == shardIndex);
+        }
+        return rows.map(Arguments::of);
+    }
+}
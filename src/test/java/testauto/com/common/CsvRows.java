@@ -0,0 +1,94 @@
+package testauto.com.common;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class CsvRows {
+
+    public static Stream<CsvRow> stream(String filePath, boolean hasHeader) throws IOException {
+        if(filePath == null || filePath.isBlank()) throw new IllegalArgumentException("'filePath' cannot be null or empty / blank.");
+        CSVReader reader = new CSVReader(Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8));
+        try{
+            Map<String, Integer> columnIndexes = hasHeader ? readHeader(reader, filePath) : Collections.emptyMap();
+            return StreamSupport.stream(new RowSpliterator(reader, columnIndexes, filePath), false)
+                    .onClose(() -> close(reader, filePath));
+        }catch (IOException | RuntimeException e){
+            close(reader, filePath);
+            LogUtil.error("Error reading file '" + filePath + "'.", CsvRows.class, e);
+            throw e;
+        }
+    }
+
+    public static Stream<CsvRow> stream(String filePath) throws IOException {
+        return stream(filePath, true);
+    }
+
+    private static Map<String, Integer> readHeader(CSVReader reader, String filePath) throws IOException {
+        String[] header;
+        try{
+            header = reader.readNext();
+        }catch (CsvValidationException e){
+            throw new IOException("Invalid header row in '" + filePath + "'.", e);
+        }
+        if(header == null) return Collections.emptyMap();
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for(int i = 0; i < header.length; i++){
+            columnIndexes.putIfAbsent(header[i].strip().toLowerCase(Locale.ROOT), i);
+        }
+        return Collections.unmodifiableMap(columnIndexes);
+    }
+
+    private static void close(CSVReader reader, String filePath){
+        try{
+            reader.close();
+        }catch (IOException e){
+            LogUtil.warn("Couldn't close '{}': {}", CsvRows.class, filePath, e.getMessage());
+        }
+    }
+
+    // AbstractSpliterator splits off growing array batches, which keeps parallel workers busy
+    // without reading the file ahead of them.
+    private static class RowSpliterator extends Spliterators.AbstractSpliterator<CsvRow> {
+        private final CSVReader reader;
+        private final Map<String, Integer> columnIndexes;
+        private final String filePath;
+        private long rowNumber;
+
+        private RowSpliterator(CSVReader reader, Map<String, Integer> columnIndexes, String filePath){
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.reader = reader;
+            this.columnIndexes = columnIndexes;
+            this.filePath = filePath;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CsvRow> action){
+            String[] values;
+            try{
+                values = reader.readNext();
+            }catch (IOException e){
+                throw new UncheckedIOException("Error reading file '" + filePath + "'.", e);
+            }catch (CsvValidationException e){
+                throw new UncheckedIOException(new IOException("Invalid row " + (rowNumber + 1) + " in '" + filePath + "'.", e));
+            }
+            if(values == null) return false;
+            action.accept(new CsvRow(columnIndexes, values, ++rowNumber));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package testauto.com.common;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+public final class DataSnapshot {
+
+    private static final int MAGIC = 0x54414453;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MISSING = -1;
+
+    private static final Map<Path, OpenSnapshot> openSnapshots = new ConcurrentHashMap<>();
+
+    private record OpenSnapshot(long lastModified, DataSnapshot snapshot) {
+    }
+
+    private final ByteBuffer buffer;
+    private final int stringOffsetsPosition;
+    private final int stringDataPosition;
+    private final String[] strings;
+    private final List<Table> tables = new ArrayList<>();
+    private final Map<String, Table> tablesByName = new LinkedHashMap<>();
+
+    public final class Table implements WorkbookIndex.Cells {
+        private final String name;
+        private final int rowCount;
+        private final int rowOffsetsPosition;
+
+        private Table(String name, int rowCount, int rowOffsetsPosition){
+            this.name = name;
+            this.rowCount = rowCount;
+            this.rowOffsetsPosition = rowOffsetsPosition;
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        @Override
+        public int getRowCount(){
+            return rowCount;
+        }
+
+        @Override
+        public boolean hasRow(int row){
+            return rowOffset(row) != MISSING;
+        }
+
+        @Override
+        public int getCellCount(int row){
+            int rowOffset = rowOffset(row);
+            return rowOffset == MISSING ? 0 : buffer.getInt(rowOffset);
+        }
+
+        @Override
+        public String get(int row, int column){
+            int rowOffset = rowOffset(row);
+            if(rowOffset == MISSING || column < 0 || column >= buffer.getInt(rowOffset)) return null;
+            return string(buffer.getInt(rowOffset + 4 + 4 * column));
+        }
+
+        public List<String> getRow(int row){
+            List<String> values = new ArrayList<>();
+            for(int column = 0; column < getCellCount(row); column++){
+                values.add(get(row, column));
+            }
+            return values;
+        }
+
+        private int rowOffset(int row){
+            return row < 0 || row >= rowCount ? MISSING : buffer.getInt(rowOffsetsPosition + 4 * row);
+        }
+    }
+
+    private DataSnapshot(ByteBuffer buffer, Path source) throws IOException {
+        this.buffer = buffer;
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION){
+            throw new IOException("'" + source + "' is not a version " + VERSION + " data snapshot.");
+        }
+        int stringCount = buffer.getInt(8);
+        int tableCount = buffer.getInt(12);
+        stringOffsetsPosition = HEADER_SIZE;
+        stringDataPosition = stringOffsetsPosition + 4 * (stringCount + 1);
+        strings = new String[stringCount];
+        int directoryPosition = stringDataPosition + buffer.getInt(stringOffsetsPosition + 4 * stringCount);
+        for(int i = 0; i < tableCount; i++){
+            int entry = directoryPosition + 12 * i;
+            Table table = new Table(string(buffer.getInt(entry)), buffer.getInt(entry + 4), buffer.getInt(entry + 8));
+            tables.add(table);
+            tablesByName.putIfAbsent(table.name.toLowerCase(Locale.ROOT), table);
+        }
+    }
+
+    public static boolean isEnabled(){
+        return Boolean.parseBoolean(System.getProperty("data-snapshots", "true"));
+    }
+
+    public static DataSnapshot of(String filePath) throws IOException {
+        Path source = Paths.get(filePath).toAbsolutePath().normalize();
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+        OpenSnapshot open = openSnapshots.get(source);
+        if(open != null && open.lastModified() == lastModified) return open.snapshot();
+        try{
+            open = openSnapshots.compute(source, (path, current) -> {
+                if(current != null && current.lastModified() == lastModified) return current;
+                try{
+                    return new OpenSnapshot(lastModified, load(path));
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }catch (UncheckedIOException e){
+            LogUtil.logAndRethrow("Error while loading data snapshot of '" + filePath + "'.", DataSnapshot.class, e.getCause());
+        }
+        return open.snapshot();
+    }
+
+    public Table getTable(String name){
+        return tablesByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public List<Table> getTables(){
+        return Collections.unmodifiableList(tables);
+    }
+
+    private String string(int id){
+        if(id == MISSING) return null;
+        String value = strings[id];
+        if(value == null){
+            int start = buffer.getInt(stringOffsetsPosition + 4 * id);
+            int end = buffer.getInt(stringOffsetsPosition + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringDataPosition + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = value;
+        }
+        return value;
+    }
+
+    // Snapshots are named <hash of the source path>-<hash of the source content>.snap, so a rebuilt snapshot
+    // replaces the one of the previous content of the same source.
+    private static DataSnapshot load(Path source) throws IOException {
+        String sourceKey = getSourceKey(source);
+        Path snapshotFile = getSnapshotDirectory().resolve(sourceKey + "-" + hash(source) + ".snap");
+        if(Files.exists(snapshotFile)){
+            try{
+                return new DataSnapshot(map(snapshotFile), snapshotFile);
+            }catch (IOException e){
+                LogUtil.warn("Rebuilding unreadable data snapshot '{}': {}", DataSnapshot.class, snapshotFile, e.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
+        byte[] encoded = encode(readTables(source));
+        try{
+            Files.createDirectories(snapshotFile.getParent());
+            Path tempFile = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+            Files.write(tempFile, encoded);
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LogUtil.info("Built data snapshot '{}' of '{}' in {} ms.", DataSnapshot.class, snapshotFile, source, (System.nanoTime() - start) / 1_000_000);
+            deleteStaleSnapshots(snapshotFile, sourceKey);
+            return new DataSnapshot(map(snapshotFile), snapshotFile);
+        }catch (IOException e){
+            LogUtil.warn("Couldn't store data snapshot of '{}', keeping it in memory: {}", DataSnapshot.class, source, e.getMessage());
+            return new DataSnapshot(ByteBuffer.wrap(encoded), source);
+        }
+    }
+
+    private static Path getSnapshotDirectory(){
+        String directory = System.getProperty("data-snapshot-dir");
+        return Paths.get(directory == null || directory.isBlank() ? "target/data-snapshots" : directory).toAbsolutePath();
+    }
+
+    private static ByteBuffer map(Path snapshotFile) throws IOException {
+        try(FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)){
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void deleteStaleSnapshots(Path snapshotFile, String sourceKey){
+        try(DirectoryStream<Path> snapshots = Files.newDirectoryStream(snapshotFile.getParent(), sourceKey + "-*.snap")){
+            for(Path snapshot: snapshots){
+                if(snapshot.equals(snapshotFile)) continue;
+                try{
+                    Files.deleteIfExists(snapshot);
+                    LogUtil.debug("Deleted stale data snapshot '{}'.", DataSnapshot.class, snapshot);
+                }catch (IOException e){
+                    // Still mapped by this or another run on platforms that lock mapped files; a later rebuild retries.
+                    LogUtil.debug("Couldn't delete stale data snapshot '{}': {}", DataSnapshot.class, snapshot, e.getMessage());
+                }
+            }
+        }catch (IOException e){
+            LogUtil.warn("Couldn't look for stale data snapshots in '{}': {}", DataSnapshot.class, snapshotFile.getParent(), e.getMessage());
+        }
+    }
+
+    private static String getSourceKey(Path source){
+        byte[] digest = sha256().digest(source.toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 8);
+    }
+
+    private static String hash(Path source) throws IOException {
+        MessageDigest digest = sha256();
+        try(InputStream inputStream = new DigestInputStream(Files.newInputStream(source), digest)){
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256(){
+        try{
+            return MessageDigest.getInstance("SHA-256");
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static Map<String, List<String[]>> readTables(Path source) throws IOException {
+        if(!source.toString().toLowerCase(Locale.ROOT).endsWith(".csv")){
+            return WorkbookIndex.readSheets(source, name -> true);
+        }
+        List<String[]> rows = new ArrayList<>();
+        try(CSVReader reader = new CSVReader(Files.newBufferedReader(source, StandardCharsets.UTF_8))){
+            String[] row;
+            while((row = reader.readNext()) != null){
+                rows.add(row);
+            }
+        }catch (CsvValidationException e){
+            throw new IOException("Invalid CSV row in '" + source + "'.", e);
+        }
+        Map<String, List<String[]>> tables = new LinkedHashMap<>();
+        tables.put(source.getFileName().toString(), rows);
+        return tables;
+    }
+
+    // Layout: header (magic, version, string count, table count), string offsets, UTF-8 string data with
+    // every distinct value stored once, table directory (name id, row count, row offsets position), then
+    // per table the absolute offset of each row (-1 when missing) followed by the rows as lists of string ids.
+    private static byte[] encode(Map<String, List<String[]>> tables) throws IOException {
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        for(Map.Entry<String, List<String[]>> table: tables.entrySet()){
+            stringIds.putIfAbsent(table.getKey(), stringIds.size());
+            for(String[] row: table.getValue()){
+                if(row == null) continue;
+                for(String value: row){
+                    if(value != null) stringIds.putIfAbsent(value, stringIds.size());
+                }
+            }
+        }
+
+        List<byte[]> encodedStrings = new ArrayList<>(stringIds.size());
+        int stringDataSize = 0;
+        for(String value: stringIds.keySet()){
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(bytes);
+            stringDataSize += bytes.length;
+        }
+
+        int position = HEADER_SIZE + 4 * (encodedStrings.size() + 1) + stringDataSize + 12 * tables.size();
+        List<Integer> rowOffsetsPositions = new ArrayList<>();
+        for(List<String[]> rows: tables.values()){
+            rowOffsetsPositions.add(position);
+            position += 4 * rows.size();
+            for(String[] row: rows){
+                if(row != null) position += 4 + 4 * row.length;
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(position);
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encodedStrings.size());
+            out.writeInt(tables.size());
+            int stringOffset = 0;
+            for(byte[] encoded: encodedStrings){
+                out.writeInt(stringOffset);
+                stringOffset += encoded.length;
+            }
+            out.writeInt(stringOffset);
+            for(byte[] encoded: encodedStrings){
+                out.write(encoded);
+            }
+
+            int tableIndex = 0;
+            for(Map.Entry<String, List<String[]>> table: tables.entrySet()){
+                out.writeInt(stringIds.get(table.getKey()));
+                out.writeInt(table.getValue().size());
+                out.writeInt(rowOffsetsPositions.get(tableIndex++));
+            }
+
+            tableIndex = 0;
+            for(List<String[]> rows: tables.values()){
+                int rowPosition = rowOffsetsPositions.get(tableIndex++) + 4 * rows.size();
+                for(String[] row: rows){
+                    out.writeInt(row == null ? MISSING : rowPosition);
+                    if(row != null) rowPosition += 4 + 4 * row.length;
+                }
+                for(String[] row: rows){
+                    if(row == null) continue;
+                    out.writeInt(row.length);
+                    for(String value: row){
+                        out.writeInt(value == null ? MISSING : stringIds.get(value));
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        for(String argument: args){
+            try(Stream<Path> files = Files.walk(Paths.get(argument))){
+                for(Path file: (Iterable<Path>) files::iterator){
+                    String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    if(Files.isRegularFile(file) && !fileName.startsWith("~$") && (fileName.endsWith(".xlsx") || fileName.endsWith(".xls") || fileName.endsWith(".csv"))){
+                        of(file.toString());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -2,14 +2,15 @@ package testauto.com.common;
 
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.w3c.dom.Document;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class FilesUtil {
@@ -25,22 +26,19 @@ public class FilesUtil {
     }
 
     public static String getPropertyValue(String propertiesFilePath, String targetProperty) throws IOException {
+        if(targetProperty == null || targetProperty.isBlank()) throw new IllegalArgumentException("'targetProperty' cannot be null or empty / blank.");
+        return ConfigUtil.getSnapshot(propertiesFilePath).get(targetProperty);
+    }
+
+    public static String getPropertyValue(String propertiesFilePath, String targetProperty, String defaultValue) throws IOException {
+        if(targetProperty == null || targetProperty.isBlank()) throw new IllegalArgumentException("'targetProperty' cannot be null or empty / blank.");
+        return ConfigUtil.getSnapshot(propertiesFilePath).get(targetProperty, defaultValue);
+    }
+
+    public static Properties getProperties(String propertiesFilePath) throws IOException {
         Properties properties = new Properties();
-        HashMap<String, String> fields = new HashMap<>();
-        fields.put("propertiesFilePath",propertiesFilePath);
-        fields.put("targetProperty", targetProperty);
-        checkIfNullOrEmpty(fields);
-        try(FileReader fileReader = new FileReader(propertiesFilePath)){
-            properties.load(fileReader);
-            if(!properties.containsKey(targetProperty))
-                throw new NoSuchElementException("No property key '" + targetProperty +  "' exists in '" + propertiesFilePath + "'.");
-            String propertyValue = properties.getProperty(targetProperty);
-            LogUtil.debug("Retrieved value '" + targetProperty + " = " + propertyValue + "'.", FilesUtil.class);
-            return propertyValue;
-        }catch (IOException e){
-            LogUtil.logAndRethrow("Error while reading properties file.", FilesUtil.class, e);
-        }
-        return null;
+        properties.putAll(ConfigUtil.getSnapshot(propertiesFilePath).asMap());
+        return properties;
     }
 
     public static Document getXMLDocument(String filePath) throws Exception {
@@ -62,7 +60,14 @@ public class FilesUtil {
 
     public static List<List<String>> readCsv(String filePath) throws IOException, CsvValidationException {
         List<List<String>> csvRows = new ArrayList<>();
-        try(CSVReader reader = new CSVReader(new FileReader(filePath))){
+        if(DataSnapshot.isEnabled()){
+            DataSnapshot.Table table = DataSnapshot.of(filePath).getTables().get(0);
+            for(int row = 0; row < table.getRowCount(); row++){
+                csvRows.add(table.getRow(row));
+            }
+            return csvRows;
+        }
+        try(CSVReader reader = new CSVReader(Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8))){
             String [] row;
             while((row = reader.readNext()) != null){
                 csvRows.add(Arrays.asList(row));
@@ -73,58 +78,24 @@ public class FilesUtil {
         return csvRows;
     }
 
-    public static String readFileTextContent(String filePath) throws IOException {
-        StringBuilder builder = new StringBuilder();
-        try(BufferedReader reader = new BufferedReader(new FileReader(filePath))){
-            String line;
-            while((line = reader.readLine()) != null){
-                builder.append(line).append(System.lineSeparator());
-            }
+    public static String readFileTextContent(String filePath, Charset charset) throws IOException {
+        try{
+            return FixtureStore.readString(filePath, charset);
         }catch (IOException e){
             LogUtil.logAndRethrow("Error reading '" + filePath + "'.", FilesUtil.class, e);
-        }
-        return builder.toString();
-    }
-
-    private static Workbook getWorkbook(FileInputStream inputStream, String filePath) throws IOException {
-        String loweredFilePath = filePath.toLowerCase();
-        if(loweredFilePath.endsWith(".xls")){
-            return new HSSFWorkbook(inputStream);
-        }else if(loweredFilePath.endsWith(".xlsx")){
-            return new XSSFWorkbook(inputStream);
-        }else{
-            throw new IllegalArgumentException("'" + filePath + "' is not a supported file type. Supported types include '.xls' and '.xlsx'");
+            return "";
         }
     }
 
-    private static int getColumnIndex(String columnName, Row columnHeadings){
-        int columnIndex = -1;
-
-        for(Cell cell: columnHeadings){
-            String currentCellAsString = new DataFormatter().formatCellValue(cell);
-            if(currentCellAsString.equalsIgnoreCase(columnName.strip())){
-                columnIndex =  cell.getColumnIndex();
-            }
-        }
-
-        if(columnIndex == -1){
-            throw new NoSuchElementException("Column '" + columnName + "' not found.");
-        }
-
-        return columnIndex;
+    public static String readFileTextContent(String filePath) throws IOException {
+        return readFileTextContent(filePath, StandardCharsets.UTF_8);
     }
 
     public static String getCellValue(String filePath,String sheetName, String columnName, int row) throws IOException {
-        try(FileInputStream inputStream = new FileInputStream(filePath)){
-            Workbook workbook = getWorkbook(inputStream, filePath);
-            Sheet sheet = Objects.requireNonNull(workbook.getSheet(sheetName), String.format("Sheet '%s' not found in '%s'.", sheetName, filePath));
-            Row columnHeadings = sheet.getRow(0);
-            Row targetRow = Objects.requireNonNull(sheet.getRow(row), "Row " + row + " does not exist.");
-            Cell cell = targetRow.getCell(getColumnIndex(columnName, columnHeadings));
-            if(cell == null){
-                return "";
-            }
-            return new DataFormatter().formatCellValue(cell);
+        try{
+            Optional<String> pendingValue = WorkbookWriter.getPendingValue(filePath, sheetName, columnName, row);
+            if(pendingValue.isPresent()) return pendingValue.get();
+            return WorkbookIndex.getSheet(filePath, sheetName).getValue(row, columnName);
         }catch (IOException e){
             LogUtil.logAndRethrow("Error reading excel file '" + filePath + "'.", FilesUtil.class, e);
             return "";
@@ -132,34 +103,16 @@ public class FilesUtil {
     }
 
     public static void writeCellValue(String filePath,String sheetName, String columnName, int row, String data) throws IOException {
-        try(FileInputStream inputStream = new FileInputStream(filePath)){
-            Workbook workbook = getWorkbook(inputStream, filePath);
-            Sheet sheet = Objects.requireNonNull(workbook.getSheet(sheetName),"'" + sheetName + "' not found.");
-            Row headings = Objects.requireNonNull(sheet.getRow(0),"No column headings found the sheet '" + sheetName + "'.");
-            int columnIndex = getColumnIndex(columnName, headings);
-
-            Row targetRow = sheet.getRow(row);
-
-            if(targetRow == null){
-                targetRow = sheet.createRow(row);
-            }
-
-            Cell cell = targetRow.getCell(columnIndex);
-
-            if(cell == null){
-                cell = targetRow.createCell(columnIndex);
-            }
-
-            cell.setCellValue(data);
-
-            try(FileOutputStream outputStream = new FileOutputStream(filePath)){
-                workbook.write(outputStream);
-            }
-            workbook.close();
+        try{
+            WorkbookWriter.write(filePath, sheetName, columnName, row, data);
         }catch (IOException e){
             String errorMessage = "Error while updating row '" + row + "' from sheet '" + sheetName + "'" + " in workbook '" + filePath +"'.";
             LogUtil.logAndRethrow(errorMessage, FilesUtil.class, e);
         }
     }
 
+    public static void flushCellValues(){
+        WorkbookWriter.flushAll();
+    }
+
 }
@@ -0,0 +1,106 @@
+package testauto.com.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FixtureStore {
+
+    private static final long MAP_THRESHOLD = Long.getLong("fixture-map-threshold", 1024 * 1024);
+    private static final long MAX_CACHE_BYTES = Long.getLong("fixture-cache-max-bytes", 64L * 1024 * 1024);
+
+    private static final Map<Path, Fixture> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cachedBytes;
+
+    private static final class Fixture {
+        private final long lastModified;
+        private final long size;
+        private final byte[] bytes;
+        private final ByteBuffer mapped;
+        private final Map<Charset, String> decoded = new ConcurrentHashMap<>();
+
+        private Fixture(long lastModified, long size, byte[] bytes, ByteBuffer mapped){
+            this.lastModified = lastModified;
+            this.size = size;
+            this.bytes = bytes;
+            this.mapped = mapped;
+        }
+
+        private ByteBuffer content(){
+            return bytes != null ? ByteBuffer.wrap(bytes).asReadOnlyBuffer() : mapped.duplicate();
+        }
+
+        private String decode(Charset charset){
+            return decoded.computeIfAbsent(charset, cs -> bytes != null ? new String(bytes, cs) : cs.decode(mapped.duplicate()).toString());
+        }
+
+        // The decoded text is cached next to the bytes, so an entry costs up to twice its file size.
+        private long weight(){
+            return size * 2;
+        }
+    }
+
+    public static ByteBuffer readBytes(String filePath) throws IOException {
+        return getFixture(filePath).content();
+    }
+
+    public static String readString(String filePath, Charset charset) throws IOException {
+        return getFixture(filePath).decode(charset);
+    }
+
+    public static synchronized void clear(){
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    private static Fixture getFixture(String filePath) throws IOException {
+        if(filePath == null || filePath.isBlank()) throw new IllegalArgumentException("'filePath' cannot be null or empty / blank.");
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        synchronized (FixtureStore.class){
+            Fixture fixture = cache.get(path);
+            if(fixture != null && fixture.lastModified == lastModified && fixture.size == size) return fixture;
+        }
+
+        Fixture fixture = load(path, lastModified, size);
+        synchronized (FixtureStore.class){
+            Fixture previous = cache.put(path, fixture);
+            if(previous != null) cachedBytes -= previous.weight();
+            cachedBytes += fixture.weight();
+            evict();
+        }
+        return fixture;
+    }
+
+    private static Fixture load(Path path, long lastModified, long size) throws IOException {
+        if(size < MAP_THRESHOLD){
+            return new Fixture(lastModified, size, Files.readAllBytes(path), null);
+        }
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            LogUtil.debug("Memory-mapping fixture '{}' ({} bytes).", FixtureStore.class, path, size);
+            return new Fixture(lastModified, size, null, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    private static void evict(){
+        Iterator<Fixture> fixtures = cache.values().iterator();
+        // Keep the most recently used entry even when it alone exceeds the budget.
+        while(cachedBytes > MAX_CACHE_BYTES && cache.size() > 1 && fixtures.hasNext()){
+            cachedBytes -= fixtures.next().weight();
+            fixtures.remove();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package testauto.com.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    // Log-linear buckets over microseconds: exact below 4 micros, then four buckets per power of two, so a
+    // percentile is reported with at most ~25% relative error for any latency up to centuries.
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = 62 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void record(long elapsedNanos){
+        long micros = Math.max(0, elapsedNanos / 1_000);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    public double getMeanMillis(){
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalMicros.sum() / 1_000.0 / samples;
+    }
+
+    public double getMaxMillis(){
+        return maxMicros.get() / 1_000.0;
+    }
+
+    public double getPercentileMillis(double percentile){
+        long samples = count.sum();
+        if(samples == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100 * samples);
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+            seen += buckets.get(bucket);
+            if(seen >= Math.max(rank, 1)) return Math.min(upperBound(bucket), maxMicros.get()) / 1_000.0;
+        }
+        return getMaxMillis();
+    }
+
+    static int bucketOf(long micros){
+        if(micros < SUB_BUCKETS) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) ((micros >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min((exponent - 1) * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+    }
+
+    static long upperBound(int bucket){
+        if(bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,77 @@
+package testauto.com.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 3, 4, 5, 7, 8, 9, 15, 16, 17, 1_023, 1_024, 1_025, 999_999, 1L << 40, (1L << 40) + 1, Long.MAX_VALUE / 1_000})
+    void bucketHoldsItsValueWithinTwentyFivePercent(long micros){
+        int bucket = LatencyHistogram.bucketOf(micros);
+        assertTrue(micros <= LatencyHistogram.upperBound(bucket), "upper bound of bucket " + bucket);
+        if(bucket > 0) assertTrue(micros > LatencyHistogram.upperBound(bucket - 1), "upper bound of bucket " + (bucket - 1));
+        assertTrue(LatencyHistogram.upperBound(bucket) - micros <= micros / 4, "relative error of bucket " + bucket);
+    }
+
+    @Test
+    void bucketsAreContiguous(){
+        for(long micros = 1; micros < 100_000; micros++){
+            int bucket = LatencyHistogram.bucketOf(micros);
+            int previous = LatencyHistogram.bucketOf(micros - 1);
+            assertTrue(bucket == previous || bucket == previous + 1, "gap between " + (micros - 1) + " and " + micros);
+        }
+    }
+
+    @Test
+    void smallValuesAreExact(){
+        assertEquals(3, LatencyHistogram.bucketOf(3));
+        assertEquals(3, LatencyHistogram.upperBound(3));
+        assertEquals(4, LatencyHistogram.bucketOf(4));
+        assertEquals(4, LatencyHistogram.upperBound(4));
+        assertEquals(7, LatencyHistogram.bucketOf(7));
+        assertEquals(8, LatencyHistogram.bucketOf(8));
+        assertEquals(9, LatencyHistogram.upperBound(8));
+    }
+
+    @Test
+    void largestValueFallsInLastBucket(){
+        assertEquals(247, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(247));
+    }
+
+    @Test
+    void emptyHistogramReportsZero(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMillis());
+        assertEquals(0, histogram.getPercentileMillis(99));
+        assertEquals(0, histogram.getMaxMillis());
+    }
+
+    @Test
+    void percentilesOfUniformLatencies(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long millis = 1; millis <= 1_000; millis++){
+            histogram.record(millis * 1_000_000);
+        }
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 1e-9);
+        assertEquals(1_000, histogram.getMaxMillis(), 1e-9);
+        assertEquals(524.287, histogram.getPercentileMillis(50), 1e-9);
+        assertEquals(1_000, histogram.getPercentileMillis(99), 1e-9);
+        assertEquals(1_000, histogram.getPercentileMillis(100), 1e-9);
+        assertEquals(1.023, histogram.getPercentileMillis(0), 1e-9);
+    }
+
+    @Test
+    void percentileIsCappedAtMax(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_100_000);
+        assertEquals(1.1, histogram.getPercentileMillis(50), 1e-9);
+    }
+}
@@ -2,23 +2,96 @@ package testauto.com.common;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.util.Map;
+import org.slf4j.MDC;
+import testauto.com.ui.utils.CommandMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+// Templates use SLF4J '{}' placeholders. The level is checked before a template is formatted or a supplier is
+// called, so a disabled log statement costs a logger lookup and a level check, and the varargs overloads are
+// only there for three or more arguments.
 public class LogUtil {
 
-    private static final Map<Class<?>, Logger> cache = new ConcurrentHashMap<>();
+    private static final ClassValue<Logger> loggers = new ClassValue<>() {
+        @Override
+        protected Logger computeValue(Class<?> callerClass){
+            return LoggerFactory.getLogger(callerClass);
+        }
+    };
 
     private static Logger getLogger(Class<?> callerClass){
         Objects.requireNonNull(callerClass,"callerClass cannot be null.");
-        return cache.computeIfAbsent(callerClass, LoggerFactory::getLogger);
+        return loggers.get(callerClass);
+    }
+
+    // Starts buffering the debug and info events of this thread under the test id (see TestLogAppender), restarts
+    // the screenshot step count and, with -Dcommand-metrics=true, times its driver commands (see CommandMetrics).
+    public static void startTest(String testId){
+        Objects.requireNonNull(testId, "testId cannot be null.");
+        TestLogAppender.open(testId);
+        MDC.put(TestLogAppender.TEST_ID, testId);
+        ScreenshotStore.startTest();
+        if(CommandMetrics.isEnabled()) CommandMetrics.startTest(testId);
+    }
+
+    // Ends the test of this thread and writes its command metrics. The buffered events of a failed test are written
+    // to logs/failures/<test id>.log and its path is returned; otherwise they are discarded and null is returned.
+    public static Path endTest(boolean failed){
+        String testId = MDC.get(TestLogAppender.TEST_ID);
+        if(testId == null) return null;
+        MDC.remove(TestLogAppender.TEST_ID);
+        CommandMetrics.endTest();
+        List<String> lines = TestLogAppender.close(testId);
+        if(!failed || lines.isEmpty()) return null;
+        Path logFile = Paths.get(System.getProperty("failure-logs-dir", "logs/failures"), testId.replaceAll("[^A-Za-z0-9._-]", "_") + ".log");
+        try{
+            Files.createDirectories(logFile.getParent());
+            Files.writeString(logFile, String.join("", lines));
+            return logFile;
+        }catch (IOException e){
+            error("Couldn't write the log of failed test '" + testId + "' to '" + logFile + "'.", LogUtil.class, e);
+            return null;
+        }
+    }
+
+    public static boolean isDebugEnabled(Class<?> callerClass){
+        return getLogger(callerClass).isDebugEnabled();
+    }
+
+    public static boolean isInfoEnabled(Class<?> callerClass){
+        return getLogger(callerClass).isInfoEnabled();
     }
 
     public static void info(String message,Class<?> callerClass){
         getLogger(callerClass).info(message);
     }
 
+    public static void info(String template, Class<?> callerClass, Object argument){
+        Logger logger = getLogger(callerClass);
+        if(logger.isInfoEnabled()) logger.info(template, argument);
+    }
+
+    public static void info(String template, Class<?> callerClass, Object first, Object second){
+        Logger logger = getLogger(callerClass);
+        if(logger.isInfoEnabled()) logger.info(template, first, second);
+    }
+
+    public static void info(String template, Class<?> callerClass, Object... arguments){
+        Logger logger = getLogger(callerClass);
+        if(logger.isInfoEnabled()) logger.info(template, arguments);
+    }
+
+    public static void info(Supplier<String> message, Class<?> callerClass){
+        Logger logger = getLogger(callerClass);
+        if(logger.isInfoEnabled()) logger.info(message.get());
+    }
+
     public static void error(String message, Class<?> callerClass){
         getLogger(callerClass).error(message);
     }
@@ -36,8 +109,43 @@ public class LogUtil {
         getLogger(callerClass).debug(message);
     }
 
+    public static void debug(String template, Class<?> callerClass, Object argument){
+        Logger logger = getLogger(callerClass);
+        if(logger.isDebugEnabled()) logger.debug(template, argument);
+    }
+
+    public static void debug(String template, Class<?> callerClass, Object first, Object second){
+        Logger logger = getLogger(callerClass);
+        if(logger.isDebugEnabled()) logger.debug(template, first, second);
+    }
+
+    public static void debug(String template, Class<?> callerClass, Object... arguments){
+        Logger logger = getLogger(callerClass);
+        if(logger.isDebugEnabled()) logger.debug(template, arguments);
+    }
+
+    public static void debug(Supplier<String> message, Class<?> callerClass){
+        Logger logger = getLogger(callerClass);
+        if(logger.isDebugEnabled()) logger.debug(message.get());
+    }
+
     public static void warn(String message,Class<?> callerClass){
         getLogger(callerClass).warn(message);
     }
 
+    public static void warn(String template, Class<?> callerClass, Object argument){
+        Logger logger = getLogger(callerClass);
+        if(logger.isWarnEnabled()) logger.warn(template, argument);
+    }
+
+    public static void warn(String template, Class<?> callerClass, Object first, Object second){
+        Logger logger = getLogger(callerClass);
+        if(logger.isWarnEnabled()) logger.warn(template, first, second);
+    }
+
+    public static void warn(String template, Class<?> callerClass, Object... arguments){
+        Logger logger = getLogger(callerClass);
+        if(logger.isWarnEnabled()) logger.warn(template, arguments);
+    }
+
 }
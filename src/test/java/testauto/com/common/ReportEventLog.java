@@ -0,0 +1,181 @@
+package testauto.com.common;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One JSON object per line for every test start, step and end of the run, from all threads. Callers only enqueue;
+// a single writer thread appends the events and flushes whenever the queue runs empty, so the file is complete up
+// to the last few events even if the run crashes. The bounded queue keeps memory flat by making callers wait when
+// the writer falls behind, and only tests that have not ended yet are remembered.
+class ReportEventLog {
+
+    private static final int QUEUE_SIZE = 10_000;
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static volatile ReportEventLog instance;
+
+    private final Path eventsFile;
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>(QUEUE_SIZE);
+    private final Map<ExtentTest, String> testIds = new ConcurrentHashMap<>();
+    private final AtomicLong nextTestId = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private record Flush(CountDownLatch done) {
+    }
+
+    private ReportEventLog(Path eventsFile){
+        this.eventsFile = eventsFile;
+        writer = new Thread(this::write, "report-events");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "report-events-shutdown"));
+        LogUtil.info("Recording report events to '{}'.", ReportEventLog.class, eventsFile);
+    }
+
+    static boolean isEnabled(){
+        return Boolean.parseBoolean(System.getProperty("report-events", "true"));
+    }
+
+    // The log of a run goes to target/reports/runs/<timestamp>/events.jsonl unless 'report-events-file' is set.
+    static ReportEventLog get(){
+        if(instance == null){
+            synchronized (ReportEventLog.class){
+                if(instance == null){
+                    String eventsFile = System.getProperty("report-events-file");
+                    instance = new ReportEventLog(eventsFile != null && !eventsFile.isBlank() ? Paths.get(eventsFile)
+                            : Paths.get("target/reports/runs", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss")), "events.jsonl"));
+                }
+            }
+        }
+        return instance;
+    }
+
+    Path getEventsFile(){
+        return eventsFile;
+    }
+
+    void step(ExtentTest node, String status, String message, Path screenshot, String details){
+        Map<String, Object> event = newEvent("step", getTestId(node));
+        event.put("status", status);
+        event.put("message", message);
+        if(screenshot != null) event.put("screenshot", screenshot.toString());
+        if(details != null) event.put("details", details);
+        enqueue(event);
+    }
+
+    void end(ExtentTest node, boolean failed, Path logFile){
+        Map<String, Object> event = newEvent("end", getTestId(node));
+        testIds.remove(node);
+        event.put("status", failed ? "fail" : "pass");
+        if(logFile != null) event.put("log", logFile.toString());
+        enqueue(event);
+    }
+
+    // Waits until every event enqueued so far is written and flushed.
+    void flush(){
+        if(closed) return;
+        CountDownLatch done = new CountDownLatch(1);
+        enqueue(new Flush(done));
+        try{
+            if(!done.await(30, TimeUnit.SECONDS)) LogUtil.warn("Report events not flushed after 30 seconds.", ReportEventLog.class);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A test is announced with a 'start' event on its first step, so tests that never end still show up.
+    private String getTestId(ExtentTest node){
+        String[] started = new String[1];
+        String testId = testIds.computeIfAbsent(node, key -> started[0] = "t" + nextTestId.incrementAndGet());
+        if(started[0] != null){
+            Map<String, Object> event = newEvent("start", testId);
+            event.put("name", node.getModel().getName());
+            enqueue(event);
+        }
+        return testId;
+    }
+
+    private static Map<String, Object> newEvent(String type, String testId){
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        event.put("time", System.currentTimeMillis());
+        event.put("thread", Thread.currentThread().getName());
+        event.put("test", testId);
+        return event;
+    }
+
+    private void enqueue(Object event){
+        if(closed) return;
+        try{
+            events.put(event);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(){
+        try{
+            Files.createDirectories(eventsFile.toAbsolutePath().getParent());
+            try(BufferedWriter out = Files.newBufferedWriter(eventsFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)){
+                List<Object> batch = new ArrayList<>();
+                while(true){
+                    batch.add(events.take());
+                    events.drainTo(batch);
+                    for(Object event: batch){
+                        if(event instanceof Flush flush){
+                            out.flush();
+                            flush.done().countDown();
+                        }else{
+                            objectMapper.writeValue(out, event);
+                            out.newLine();
+                        }
+                    }
+                    batch.clear();
+                    out.flush();
+                }
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }catch (IOException e){
+            closed = true;
+            events.clear();
+            LogUtil.error("Couldn't write report events to '" + eventsFile + "'. Event recording is disabled.", ReportEventLog.class, e);
+        }
+    }
+
+    private void close(){
+        flush();
+        closed = true;
+        if(Boolean.parseBoolean(System.getProperty("report-render", "true"))){
+            try{
+                ReportRenderer.render(eventsFile, ReportRenderer.getDefaultOutput(eventsFile));
+            }catch (IOException e){
+                LogUtil.error("Couldn't render the report of '" + eventsFile + "'.", ReportEventLog.class, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package testauto.com.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+// Streams an event log (see ReportEventLog) into a single HTML timeline. Only the names of tests that have started
+// but not ended are kept in memory, so rendering a run of any length takes constant memory. Unreadable lines, such
+// as the last line of a crashed run, are skipped.
+public class ReportRenderer {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final String HEAD = """
+            <!DOCTYPE html>
+            <html>
+            <head>
+            <meta charset="utf-8">
+            <title>Test run</title>
+            <style>
+                body { display: flex; flex-direction: column; font-family: sans-serif; font-size: 13px; margin: 16px; }
+                #summary { order: -1; margin-bottom: 16px; }
+                table { border-collapse: collapse; width: 100%; }
+                td, th { border-bottom: 1px solid #ddd; padding: 4px 8px; text-align: left; vertical-align: top; }
+                tr.start td { background: #f4f4f4; font-weight: bold; }
+                .pass { color: #2e7d32; } .fail { color: #c62828; } .info { color: #1565c0; } .unfinished { color: #ef6c00; }
+                td.test { cursor: pointer; }
+                pre { margin: 0; max-height: 300px; overflow: auto; }
+                img { max-width: 320px; }
+            </style>
+            <script>
+                // Clicking a test name shows only that test's rows; clicking it again shows every row.
+                document.addEventListener('click', function (event) {
+                    var cell = event.target.closest('td.test');
+                    if (!cell) return;
+                    var test = cell.parentElement.dataset.test, filtered = document.body.dataset.filter === test;
+                    document.body.dataset.filter = filtered ? '' : test;
+                    document.querySelectorAll('tr[data-test]').forEach(function (row) {
+                        row.hidden = !filtered && row.dataset.test !== test;
+                    });
+                });
+            </script>
+            </head>
+            <body>
+            <table>
+            <tr><th>Time</th><th>Thread</th><th>Test</th><th>Status</th><th>Details</th></tr>
+            """;
+
+    public static Path getDefaultOutput(Path eventsFile){
+        return eventsFile.resolveSibling("report.html");
+    }
+
+    public static void render(Path eventsFile, Path output) throws IOException {
+        Path outputDirectory = output.toAbsolutePath().getParent();
+        Files.createDirectories(outputDirectory);
+        Path tempFile = Files.createTempFile(outputDirectory, "report", ".tmp");
+        Map<String, String> openTests = new HashMap<>();
+        long tests = 0, passed = 0, failed = 0, steps = 0, skippedLines = 0, firstTime = 0, lastTime = 0;
+
+        try(BufferedReader in = Files.newBufferedReader(eventsFile, StandardCharsets.UTF_8);
+            BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)){
+            out.write(HEAD);
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.isBlank()) continue;
+                JsonNode event;
+                try{
+                    event = objectMapper.readTree(line);
+                }catch (IOException e){
+                    skippedLines++;
+                    continue;
+                }
+                String type = event.path("type").asText();
+                String testId = event.path("test").asText();
+                String status = event.path("status").asText();
+                long time = event.path("time").asLong();
+                if(firstTime == 0) firstTime = time;
+                lastTime = time;
+
+                StringBuilder details = new StringBuilder();
+                switch (type){
+                    case "start" -> {
+                        tests++;
+                        openTests.put(testId, event.path("name").asText());
+                        details.append("Started");
+                    }
+                    case "step" -> {
+                        steps++;
+                        details.append(escape(event.path("message").asText()));
+                        if(event.hasNonNull("screenshot")){
+                            String screenshot = escape(link(outputDirectory, event.get("screenshot").asText()));
+                            details.append("<br><a href=\"").append(screenshot).append("\"><img loading=\"lazy\" src=\"").append(screenshot).append("\"></a>");
+                        }
+                        if(event.hasNonNull("details")) details.append("<pre>").append(escape(event.get("details").asText())).append("</pre>");
+                    }
+                    case "end" -> {
+                        if("fail".equals(status)) failed++;
+                        else passed++;
+                        details.append("Finished");
+                        if(event.hasNonNull("log")){
+                            details.append(" (<a href=\"").append(escape(link(outputDirectory, event.get("log").asText()))).append("\">log</a>)");
+                        }
+                    }
+                    default -> {
+                        skippedLines++;
+                        continue;
+                    }
+                }
+                String name = "end".equals(type) ? openTests.remove(testId) : openTests.get(testId);
+                out.write(String.format("<tr class=\"%s\" data-test=\"%s\"><td>%s</td><td>%s</td><td class=\"test\">%s</td><td class=\"%s\">%s</td><td>%s</td></tr>%n",
+                        type, escape(testId), TIME_FORMAT.format(Instant.ofEpochMilli(time)), escape(event.path("thread").asText()),
+                        escape(name == null ? testId : name), escape(status), escape(status), details));
+            }
+            out.write("</table>\n<section id=\"summary\">\n");
+            out.write(String.format("<h2>Test run</h2>%n<p>%d tests: <span class=\"pass\">%d passed</span>, <span class=\"fail\">%d failed</span>, <span class=\"unfinished\">%d unfinished</span>. %d steps in %.1f s.</p>%n",
+                    tests, passed, failed, openTests.size(), steps, (lastTime - firstTime) / 1000.0));
+            if(skippedLines > 0) out.write(String.format("<p>%d unreadable events were skipped.</p>%n", skippedLines));
+            out.write("</section>\n</body>\n</html>\n");
+        }catch (IOException e){
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LogUtil.info("Rendered report '{}' from '{}'.", ReportRenderer.class, output, eventsFile);
+    }
+
+    // Files are recorded relative to the working directory of the run; links are relative to the report.
+    private static String link(Path outputDirectory, String file){
+        return outputDirectory.relativize(Paths.get(file).toAbsolutePath()).toString().replace('\\', '/');
+    }
+
+    private static String escape(String text){
+        StringBuilder escaped = new StringBuilder(text.length());
+        for(char c: text.toCharArray()){
+            switch (c){
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // Renders the report of a run that ended without rendering it, e.g. after a crash:
+    // ReportRenderer <events.jsonl> [<report.html>]
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) throw new IllegalArgumentException("Pass the path of an events.jsonl file.");
+        Path eventsFile = Paths.get(args[0]);
+        render(eventsFile, args.length > 1 ? Paths.get(args[1]) : getDefaultOutput(eventsFile));
+    }
+}
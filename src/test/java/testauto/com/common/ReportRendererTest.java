@@ -0,0 +1,77 @@
+package testauto.com.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportRendererTest {
+
+    @TempDir
+    Path directory;
+
+    private String render(String... lines) throws IOException {
+        Path eventsFile = directory.resolve("runs/1/events.jsonl");
+        Files.createDirectories(eventsFile.getParent());
+        Files.writeString(eventsFile, String.join("\n", lines), StandardCharsets.UTF_8);
+        Path output = ReportRenderer.getDefaultOutput(eventsFile);
+        ReportRenderer.render(eventsFile, output);
+        return Files.readString(output, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void countsPassedFailedAndUnfinishedTests() throws IOException {
+        String html = render(
+                "{\"type\":\"start\",\"time\":1000,\"thread\":\"main\",\"test\":\"t1\",\"name\":\"login\"}",
+                "{\"type\":\"step\",\"time\":1100,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"pass\",\"message\":\"ok\"}",
+                "{\"type\":\"end\",\"time\":1200,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"pass\"}",
+                "{\"type\":\"start\",\"time\":1300,\"thread\":\"main\",\"test\":\"t2\",\"name\":\"search\"}",
+                "{\"type\":\"end\",\"time\":1400,\"thread\":\"main\",\"test\":\"t2\",\"status\":\"fail\"}",
+                "{\"type\":\"start\",\"time\":1500,\"thread\":\"main\",\"test\":\"t3\",\"name\":\"checkout\"}");
+        assertTrue(html.contains("3 tests: <span class=\"pass\">1 passed</span>, <span class=\"fail\">1 failed</span>, <span class=\"unfinished\">1 unfinished</span>. 1 steps in 0.5 s."), html);
+        assertFalse(html.contains("unreadable"), html);
+    }
+
+    @Test
+    void skipsTornLastLine() throws IOException {
+        String html = render(
+                "{\"type\":\"start\",\"time\":1000,\"thread\":\"main\",\"test\":\"t1\",\"name\":\"login\"}",
+                "{\"type\":\"step\",\"time\":1100,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"pa");
+        assertTrue(html.contains("1 tests:"), html);
+        assertTrue(html.contains("<span class=\"unfinished\">1 unfinished</span>"), html);
+        assertTrue(html.contains("<p>1 unreadable events were skipped.</p>"), html);
+    }
+
+    @Test
+    void escapesEventText() throws IOException {
+        String html = render(
+                "{\"type\":\"start\",\"time\":1000,\"thread\":\"main\",\"test\":\"t1\",\"name\":\"<b>login</b>\"}",
+                "{\"type\":\"step\",\"time\":1100,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"fail\",\"message\":\"<script>alert('x')</script>\",\"details\":\"a & b\"}");
+        assertFalse(html.contains("<script>alert"), html);
+        assertTrue(html.contains("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;"), html);
+        assertTrue(html.contains("&lt;b&gt;login&lt;/b&gt;"), html);
+        assertTrue(html.contains("<pre>a &amp; b</pre>"), html);
+    }
+
+    @Test
+    void linksFilesRelativeToReport() throws IOException {
+        Path logFile = directory.resolve("logs/failures/t1.log");
+        Path screenshot = directory.resolve("screenshots/abc.jpg");
+        String html = render(
+                "{\"type\":\"start\",\"time\":1000,\"thread\":\"main\",\"test\":\"t1\",\"name\":\"login\"}",
+                "{\"type\":\"step\",\"time\":1100,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"fail\",\"message\":\"m\",\"screenshot\":\"" + json(screenshot) + "\"}",
+                "{\"type\":\"end\",\"time\":1200,\"thread\":\"main\",\"test\":\"t1\",\"status\":\"fail\",\"log\":\"" + json(logFile) + "\"}");
+        assertTrue(html.contains("src=\"../../screenshots/abc.jpg\""), html);
+        assertTrue(html.contains("href=\"../../logs/failures/t1.log\""), html);
+    }
+
+    private static String json(Path path){
+        return path.toAbsolutePath().toString().replace("\\", "\\\\");
+    }
+}
@@ -3,8 +3,8 @@ package testauto.com.common;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.markuputils.MarkupHelper;
-import com.aventstack.extentreports.model.Media;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
@@ -12,9 +12,15 @@ import io.restassured.response.Response;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import testauto.com.ui.utils.CommandMetrics;
 import testauto.com.ui.utils.DriverUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 public class ReportUtil {
@@ -26,7 +32,7 @@ public class ReportUtil {
             ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportName);
             reports = new ExtentReports();
             reports.attachReporter(sparkReporter);
-            LogUtil.info("Initialized report to destination '" + reportName + "'.", ReportUtil.class);
+            LogUtil.info("Initialized report to destination '{}'.", ReportUtil.class, reportName);
         }catch (Exception e){
             LogUtil.error("Couldn't initialize report for '" + testClass.getSimpleName() + "'.", ReportUtil.class, e);
         }
@@ -43,7 +49,7 @@ public class ReportUtil {
         }
 
         timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss"));
-        LogUtil.info("Set timestamp: " + timeStamp + ".", ReportUtil.class);
+        LogUtil.info("Set timestamp: {}.", ReportUtil.class, timeStamp);
         return  "target/reports/" + testClass.getSimpleName()  + "/" + environment + "/automation_" + timeStamp + ".html";
     }
 
@@ -51,15 +57,19 @@ public class ReportUtil {
         String platform = System.getProperty("platform");
         if(node == null) throw new IllegalArgumentException("node cannot be null.");
         if(platform == null || platform.isBlank()) throw new IllegalArgumentException("Platform cannot be null. Pass it as a VM option with key 'platform'.");
-        if(status.equalsIgnoreCase("pass")){
-            node.pass(message, takeScreenshot(platform));
-        }else if(status.equalsIgnoreCase("fail")){
-            node.fail(message, takeScreenshot(platform));
-        }else if(status.equalsIgnoreCase("info")){
-            node.info(message, takeScreenshot(platform));
-        }else {
-            throw new IllegalArgumentException("'" + status + "' is not a supported status.");
+        Status logStatus = switch (status.toLowerCase()){
+            case "pass" -> Status.PASS;
+            case "fail" -> Status.FAIL;
+            case "info" -> Status.INFO;
+            default -> throw new IllegalArgumentException("'" + status + "' is not a supported status.");
+        };
+        Path screenshot = ScreenshotStore.shouldCapture(logStatus == Status.FAIL) ? takeScreenshot(platform) : null;
+        if(screenshot != null){
+            node.log(logStatus, message, MediaEntityBuilder.createScreenCaptureFromPath(ScreenshotStore.getReportLink(screenshot)).build());
+        }else{
+            node.log(logStatus, message);
         }
+        if(ReportEventLog.isEnabled()) ReportEventLog.get().step(node, status.toLowerCase(), message, screenshot, null);
     }
 
     public static void reportAPI(String status, String message, ExtentTest node, Response response){
@@ -74,15 +84,62 @@ public class ReportUtil {
             throw new IllegalArgumentException("'" + status + "' is not a supported status.");
         }
         node.info(MarkupHelper.createCodeBlock(response.asString()));
+        if(ReportEventLog.isEnabled()) ReportEventLog.get().step(node, status.toLowerCase(), message, null, response.asString());
+    }
+
+    // Ends the log buffer of the current test (see LogUtil.startTest) and, if it failed, attaches the buffered log.
+    public static void endTest(ExtentTest node, boolean failed){
+        if(node == null) throw new IllegalArgumentException("node cannot be null.");
+        Path logFile = LogUtil.endTest(failed);
+        if(ReportEventLog.isEnabled()) ReportEventLog.get().end(node, failed, logFile);
+        if(logFile == null) return;
+        try{
+            node.info("Log of the failed test, also written to '" + logFile + "':");
+            node.info(MarkupHelper.createCodeBlock(Files.readString(logFile)));
+        }catch (IOException e){
+            LogUtil.error("Couldn't attach test log '" + logFile + "' to the report.", ReportUtil.class, e);
+        }
+    }
+
+    // Renders the shared event log of the run so far; it is also rendered when the run ends.
+    public static Path renderReport() throws IOException {
+        if(!ReportEventLog.isEnabled()) throw new IllegalStateException("Report events are disabled. Remove '-Dreport-events=false' to record them.");
+        ReportEventLog eventLog = ReportEventLog.get();
+        eventLog.flush();
+        Path output = ReportRenderer.getDefaultOutput(eventLog.getEventsFile());
+        ReportRenderer.render(eventLog.getEventsFile(), output);
+        return output;
+    }
+
+    // Adds a latency table of the driver commands of the current test (see CommandMetrics.startTest), or of the
+    // whole suite when no test is being tracked on this thread.
+    public static void reportMetrics(ExtentTest node){
+        if(node == null) throw new IllegalArgumentException("node cannot be null.");
+        List<CommandMetrics.Row> rows = CommandMetrics.getTestMetrics();
+        if(rows.isEmpty()) rows = CommandMetrics.getSuiteMetrics();
+        if(rows.isEmpty()) return;
+        String[][] table = new String[rows.size() + 1][];
+        table[0] = new String[]{"Command", "Element", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"};
+        for(int i = 0; i < rows.size(); i++){
+            CommandMetrics.Row row = rows.get(i);
+            table[i + 1] = new String[]{row.command(), row.element(), String.valueOf(row.count()), format(row.meanMillis()),
+                    format(row.p50Millis()), format(row.p90Millis()), format(row.p99Millis()), format(row.maxMillis())};
+        }
+        node.info(MarkupHelper.createTable(table));
+    }
+
+    private static String format(double millis){
+        return String.format(Locale.ROOT, "%.1f", millis);
     }
 
-    private static Media takeScreenshot(String platform){
-        String screenshot = switch (platform.toLowerCase()) {
-            case "web" -> ((TakesScreenshot) DriverUtil.getDriver(WebDriver.class)).getScreenshotAs(OutputType.BASE64);
-            case "ios" -> DriverUtil.getDriver(IOSDriver.class).getScreenshotAs(OutputType.BASE64);
-            case "android" -> DriverUtil.getDriver(AndroidDriver.class).getScreenshotAs(OutputType.BASE64);
+    // Only the driver round trip runs on the test thread; the image is linked by path and written in the background.
+    private static Path takeScreenshot(String platform){
+        byte[] screenshot = switch (platform.toLowerCase()) {
+            case "web" -> ((TakesScreenshot) DriverUtil.getDriver(WebDriver.class)).getScreenshotAs(OutputType.BYTES);
+            case "ios" -> DriverUtil.getDriver(IOSDriver.class).getScreenshotAs(OutputType.BYTES);
+            case "android" -> DriverUtil.getDriver(AndroidDriver.class).getScreenshotAs(OutputType.BYTES);
             default -> throw new IllegalArgumentException("'" + platform + "' is not a supported platform");
         };
-        return MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot).build();
+        return ScreenshotStore.store(screenshot);
     }
 }
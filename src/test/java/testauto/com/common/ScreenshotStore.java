@@ -0,0 +1,168 @@
+package testauto.com.common;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Screenshots are stored once per distinct image as target/reports/screenshots/<sha-256 of the PNG>.jpg. The test
+// thread only hashes the PNG; downscaling and JPEG encoding run on a small pool that falls back to the caller when
+// its queue is full, so pending images never pile up in memory.
+class ScreenshotStore {
+
+    static final Path DIRECTORY = Paths.get("target/reports/screenshots");
+    // Reports are written to target/reports/<test class>/<environment>/, see ReportUtil.getReportName.
+    private static final String REPORT_RELATIVE_DIRECTORY = "../../screenshots/";
+
+    private static final int MAX_WIDTH = Integer.parseInt(System.getProperty("screenshot-max-width", "1280").strip());
+    private static final float QUALITY = Float.parseFloat(System.getProperty("screenshot-quality", "0.7").strip());
+    private static final int EVERY = getEvery();
+    private static final Set<String> storedImages = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Integer> steps = ThreadLocal.withInitial(() -> 0);
+    private static final ExecutorService encoder = createEncoder();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotStore::awaitPending, "screenshot-encoder-shutdown"));
+    }
+
+    private static int getEvery(){
+        String every = System.getProperty("screenshot-every", "5").strip();
+        int steps = Integer.parseInt(every);
+        if(steps < 1) throw new IllegalArgumentException("'screenshot-every' must be at least 1 but was '" + every + "'.");
+        return steps;
+    }
+
+    private static ExecutorService createEncoder(){
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "screenshot-encoder");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Restarts the step count of the every-n policy for the test starting on this thread.
+    static void startTest(){
+        steps.remove();
+    }
+
+    // 'screenshot-policy' is one of always (default), on-failure, every-n (every 'screenshot-every' steps of the
+    // current test, and on failure) or never.
+    static boolean shouldCapture(boolean failure){
+        String policy = System.getProperty("screenshot-policy", "always").strip().toLowerCase();
+        return switch (policy){
+            case "always" -> true;
+            case "never" -> false;
+            case "on-failure" -> failure;
+            case "every-n" -> {
+                int step = steps.get() + 1;
+                steps.set(step);
+                yield failure || step % EVERY == 0;
+            }
+            default -> throw new IllegalArgumentException("'" + policy + "' is not a supported screenshot policy. Supported options include: always, on-failure, every-n and never.");
+        };
+    }
+
+    // Returns the path of the image; the file itself may still be being written.
+    static Path store(byte[] png){
+        String hash = hash(png);
+        Path image = DIRECTORY.resolve(hash + ".jpg");
+        if(storedImages.add(hash) && !Files.exists(image)){
+            encoder.execute(() -> write(png, hash, image));
+        }
+        return image;
+    }
+
+    // The link to a stored image from an Extent report.
+    static String getReportLink(Path image){
+        return REPORT_RELATIVE_DIRECTORY + image.getFileName();
+    }
+
+    private static String hash(byte[] png){
+        try{
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png));
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static void write(byte[] png, String hash, Path image){
+        Path tempFile = null;
+        try{
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+            if(source == null) throw new IOException("Screenshot is not a readable image.");
+            double scale = Math.min(1, (double) MAX_WIDTH / source.getWidth());
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            // JPEG has no alpha channel, so the image is flattened onto white while it is scaled.
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try{
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+            }finally {
+                graphics.dispose();
+            }
+
+            Files.createDirectories(image.getParent());
+            tempFile = Files.createTempFile(image.getParent(), "screenshot", ".tmp");
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try(ImageOutputStream output = ImageIO.createImageOutputStream(tempFile.toFile())){
+                ImageWriteParam parameters = writer.getDefaultWriteParam();
+                parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                parameters.setCompressionQuality(QUALITY);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(scaled, null, null), parameters);
+            }finally {
+                writer.dispose();
+            }
+            Files.move(tempFile, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException | RuntimeException e){
+            // Forgetting the image lets the next capture of the same frame try again.
+            storedImages.remove(hash);
+            LogUtil.warn("Couldn't store screenshot '{}': {}", ScreenshotStore.class, image, e.getMessage());
+        }finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private static void deleteQuietly(Path file){
+        if(file == null) return;
+        try{
+            Files.deleteIfExists(file);
+        }catch (IOException e){
+            LogUtil.warn("Couldn't delete temporary screenshot '{}': {}", ScreenshotStore.class, file, e.getMessage());
+        }
+    }
+
+    static void awaitPending(){
+        encoder.shutdown();
+        try{
+            if(!encoder.awaitTermination(30, TimeUnit.SECONDS)){
+                LogUtil.warn("Screenshots still being encoded after 30 seconds were dropped.", ScreenshotStore.class);
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
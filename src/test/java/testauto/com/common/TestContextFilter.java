@@ -0,0 +1,29 @@
+package testauto.com.common;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+
+// Drops events below 'testLevel' while a test is open on the logging thread (they are kept by TestLogAppender
+// instead) and events below 'level' otherwise. Must run on the logging thread, i.e. before any async appender.
+public class TestContextFilter extends Filter<ILoggingEvent> {
+
+    private Level level = Level.INFO;
+    private Level testLevel = Level.WARN;
+
+    public void setLevel(String level){
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setTestLevel(String testLevel){
+        this.testLevel = Level.toLevel(testLevel, Level.WARN);
+    }
+
+    @Override
+    public FilterReply decide(ILoggingEvent event){
+        Level threshold = MDC.get(TestLogAppender.TEST_ID) == null ? level : testLevel;
+        return event.getLevel().isGreaterOrEqual(threshold) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,26 @@
+package testauto.com.common;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+// Lets the 'testauto' loggers run at debug for TestLogAppender while keeping levels below 'level' disabled
+// outside a test. Turbo filters are also consulted by Logger.isDebugEnabled(), so a debug call outside a test
+// is rejected before any event is built.
+public class TestContextTurboFilter extends TurboFilter {
+
+    private Level level = Level.INFO;
+
+    public void setLevel(String level){
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t){
+        if(eventLevel == null || eventLevel.isGreaterOrEqual(level)) return FilterReply.NEUTRAL;
+        return MDC.get(TestLogAppender.TEST_ID) == null ? FilterReply.DENY : FilterReply.NEUTRAL;
+    }
+}
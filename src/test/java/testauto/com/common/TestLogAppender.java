@@ -0,0 +1,76 @@
+package testauto.com.common;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.Layout;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the last 'capacity' events of every open test (MDC key 'testId') in memory. Nothing is written here:
+// LogUtil.endTest takes the buffer and only writes it out when the test failed.
+public class TestLogAppender extends AppenderBase<ILoggingEvent> {
+
+    static final String TEST_ID = "testId";
+
+    private static final Map<String, Deque<ILoggingEvent>> buffers = new ConcurrentHashMap<>();
+    private static volatile Layout<ILoggingEvent> activeLayout;
+    private static volatile int activeCapacity = 2000;
+
+    private Layout<ILoggingEvent> layout;
+    private int capacity = 2000;
+
+    public void setLayout(Layout<ILoggingEvent> layout){
+        this.layout = layout;
+    }
+
+    public void setCapacity(int capacity){
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void start(){
+        if(layout == null){
+            addError("No layout set for the appender named '" + name + "'.");
+            return;
+        }
+        if(capacity < 1){
+            addError("'capacity' must be at least 1 but was " + capacity + ".");
+            return;
+        }
+        activeLayout = layout;
+        activeCapacity = capacity;
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event){
+        String testId = event.getMDCPropertyMap().get(TEST_ID);
+        if(testId == null) return;
+        Deque<ILoggingEvent> buffer = buffers.get(testId);
+        if(buffer == null) return;
+        // The message arguments may change after the call, so the event is formatted now rather than at flush.
+        event.prepareForDeferredProcessing();
+        synchronized (buffer){
+            if(buffer.size() == activeCapacity) buffer.removeFirst();
+            buffer.addLast(event);
+        }
+    }
+
+    static void open(String testId){
+        buffers.put(testId, new ArrayDeque<>());
+    }
+
+    // Removes the buffer of the test and returns its formatted lines, or an empty list when nothing was buffered.
+    static List<String> close(String testId){
+        Deque<ILoggingEvent> buffer = buffers.remove(testId);
+        Layout<ILoggingEvent> layout = activeLayout;
+        if(buffer == null || layout == null) return List.of();
+        synchronized (buffer){
+            return buffer.stream().map(layout::doLayout).toList();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package testauto.com.common;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+public class WorkbookIndex {
+
+    private static final Map<String, CachedSheet> cache = new ConcurrentHashMap<>();
+
+    private record CachedSheet(long lastModified, SheetIndex sheet) {
+    }
+
+    interface Cells {
+        int getRowCount();
+
+        boolean hasRow(int row);
+
+        int getCellCount(int row);
+
+        String get(int row, int column);
+    }
+
+    private static final class ColumnarCells implements Cells {
+        private final String[][] columns;
+        private final int[] cellCounts;
+
+        private ColumnarCells(List<String[]> rows){
+            int columnCount = 0;
+            for(String[] row: rows){
+                if(row != null) columnCount = Math.max(columnCount, row.length);
+            }
+            columns = new String[columnCount][rows.size()];
+            cellCounts = new int[rows.size()];
+            for(int rowIndex = 0; rowIndex < rows.size(); rowIndex++){
+                String[] row = rows.get(rowIndex);
+                if(row == null){
+                    cellCounts[rowIndex] = -1;
+                    continue;
+                }
+                cellCounts[rowIndex] = row.length;
+                for(int columnIndex = 0; columnIndex < row.length; columnIndex++){
+                    columns[columnIndex][rowIndex] = row[columnIndex];
+                }
+            }
+        }
+
+        @Override
+        public int getRowCount(){
+            return cellCounts.length;
+        }
+
+        @Override
+        public boolean hasRow(int row){
+            return row >= 0 && row < cellCounts.length && cellCounts[row] >= 0;
+        }
+
+        @Override
+        public int getCellCount(int row){
+            return hasRow(row) ? cellCounts[row] : 0;
+        }
+
+        @Override
+        public String get(int row, int column){
+            return column < columns.length && hasRow(row) ? columns[column][row] : null;
+        }
+    }
+
+    public static final class SheetIndex {
+        private final String name;
+        private final Map<String, Integer> columnIndexes;
+        private final Cells cells;
+
+        private SheetIndex(String name, Cells cells){
+            this.name = name;
+            this.cells = cells;
+            Map<String, Integer> headings = new HashMap<>();
+            for(int columnIndex = 0; columnIndex < cells.getCellCount(0); columnIndex++){
+                String heading = cells.get(0, columnIndex);
+                if(heading != null) headings.put(heading.toLowerCase(Locale.ROOT), columnIndex);
+            }
+            columnIndexes = Collections.unmodifiableMap(headings);
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        public int getRowCount(){
+            return cells.getRowCount();
+        }
+
+        public boolean hasRow(int row){
+            return cells.hasRow(row);
+        }
+
+        public int getColumnIndex(String columnName){
+            Integer columnIndex = columnIndexes.get(columnName.strip().toLowerCase(Locale.ROOT));
+            if(columnIndex == null) throw new NoSuchElementException("Column '" + columnName + "' not found.");
+            return columnIndex;
+        }
+
+        public String getValue(int row, String columnName){
+            int columnIndex = getColumnIndex(columnName);
+            if(!hasRow(row)) throw new NullPointerException("Row " + row + " does not exist.");
+            String value = cells.get(row, columnIndex);
+            return value == null ? "" : value;
+        }
+    }
+
+    public static SheetIndex getSheet(String filePath, String sheetName) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String key = path + "!" + sheetName.toLowerCase(Locale.ROOT);
+        CachedSheet cached = cache.get(key);
+        if(cached != null && cached.lastModified() == lastModified) return cached.sheet();
+        try{
+            cached = cache.compute(key, (ignored, current) -> {
+                if(current != null && current.lastModified() == lastModified) return current;
+                return new CachedSheet(lastModified, load(path, sheetName));
+            });
+        }catch (UncheckedIOException e){
+            LogUtil.logAndRethrow("Error reading excel file '" + filePath + "'.", WorkbookIndex.class, e.getCause());
+        }
+        return cached.sheet();
+    }
+
+    static void invalidate(String filePath){
+        String prefix = Paths.get(filePath).toAbsolutePath().normalize() + "!";
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static SheetIndex load(Path path, String sheetName){
+        long start = System.nanoTime();
+        SheetIndex sheet;
+        try{
+            if(DataSnapshot.isEnabled()){
+                DataSnapshot.Table table = DataSnapshot.of(path.toString()).getTable(sheetName);
+                if(table == null) throw new NullPointerException(String.format("Sheet '%s' not found in '%s'.", sheetName, path));
+                sheet = new SheetIndex(table.getName(), table);
+            }else{
+                Map<String, List<String[]>> sheets = readSheets(path, name -> name.equalsIgnoreCase(sheetName));
+                if(sheets.isEmpty()) throw new NullPointerException(String.format("Sheet '%s' not found in '%s'.", sheetName, path));
+                Map.Entry<String, List<String[]>> entry = sheets.entrySet().iterator().next();
+                sheet = new SheetIndex(entry.getKey(), new ColumnarCells(entry.getValue()));
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        LogUtil.debug("Indexed sheet '{}' of '{}' ({} rows) in {} ms.", WorkbookIndex.class, sheetName, path, sheet.getRowCount(), (System.nanoTime() - start) / 1_000_000);
+        return sheet;
+    }
+
+    static Map<String, List<String[]>> readSheets(Path path, Predicate<String> sheetFilter) throws IOException {
+        String loweredFilePath = path.toString().toLowerCase(Locale.ROOT);
+        try{
+            if(loweredFilePath.endsWith(".xlsx")){
+                return readStreaming(path, sheetFilter);
+            }else if(loweredFilePath.endsWith(".xls")){
+                return readLegacy(path, sheetFilter);
+            }else{
+                throw new IllegalArgumentException("'" + path + "' is not a supported file type. Supported types include '.xls' and '.xlsx'");
+            }
+        }catch (IOException | RuntimeException e){
+            throw e;
+        }catch (Exception e){
+            throw new IOException("Couldn't parse '" + path + "'.", e);
+        }
+    }
+
+    private static Map<String, List<String[]>> readStreaming(Path path, Predicate<String> sheetFilter) throws Exception {
+        Map<String, List<String[]>> sheetRows = new LinkedHashMap<>();
+        try(OPCPackage workbookPackage = OPCPackage.open(path.toFile(), PackageAccess.READ)){
+            XSSFReader reader = new XSSFReader(workbookPackage);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(workbookPackage);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while(sheets.hasNext()){
+                try(InputStream sheetStream = sheets.next()){
+                    if(!sheetFilter.test(sheets.getSheetName())) continue;
+                    RowCollector collector = new RowCollector();
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, collector, new DataFormatter(), false));
+                    parser.parse(new InputSource(sheetStream));
+                    sheetRows.put(sheets.getSheetName(), collector.rows);
+                }
+            }
+        }
+        return sheetRows;
+    }
+
+    private static Map<String, List<String[]>> readLegacy(Path path, Predicate<String> sheetFilter) throws IOException {
+        Map<String, List<String[]>> sheetRows = new LinkedHashMap<>();
+        try(InputStream inputStream = Files.newInputStream(path); HSSFWorkbook workbook = new HSSFWorkbook(inputStream)){
+            DataFormatter formatter = new DataFormatter();
+            for(Sheet sheet: workbook){
+                if(!sheetFilter.test(sheet.getSheetName())) continue;
+                List<String[]> rows = new ArrayList<>();
+                for(Row row: sheet){
+                    String[] values = new String[Math.max(row.getLastCellNum(), 0)];
+                    for(Cell cell: row){
+                        values[cell.getColumnIndex()] = formatter.formatCellValue(cell);
+                    }
+                    while(rows.size() < row.getRowNum()) rows.add(null);
+                    rows.add(values);
+                }
+                sheetRows.put(sheet.getSheetName(), rows);
+            }
+        }
+        return sheetRows;
+    }
+
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final List<String[]> rows = new ArrayList<>();
+        private final List<String> currentRow = new ArrayList<>();
+        private int currentColumn;
+
+        @Override
+        public void startRow(int rowNum){
+            while(rows.size() < rowNum) rows.add(null);
+            currentRow.clear();
+            currentColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum){
+            rows.add(currentRow.toArray(new String[0]));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment){
+            int column = cellReference == null ? currentColumn : new CellReference(cellReference).getCol();
+            while(currentRow.size() < column) currentRow.add(null);
+            currentRow.add(formattedValue);
+            currentColumn = column + 1;
+        }
+    }
+}
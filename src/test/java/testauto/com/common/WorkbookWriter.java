@@ -0,0 +1,209 @@
+package testauto.com.common;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class WorkbookWriter {
+
+    private static final int FLUSH_SIZE = Integer.getInteger("excel-flush-size", 500);
+    private static final long FLUSH_INTERVAL = Long.getLong("excel-flush-interval", 30);
+    private static final Map<Path, PendingWrites> pendingWrites = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WorkbookWriter::flushAll, "excel-flush-shutdown"));
+        if(FLUSH_INTERVAL > 0){
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "excel-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(WorkbookWriter::flushAll, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.SECONDS);
+        }
+    }
+
+    private record CellKey(String sheetName, String columnName, int row) {
+        private static CellKey of(String sheetName, String columnName, int row){
+            return new CellKey(sheetName.toLowerCase(Locale.ROOT), columnName.strip().toLowerCase(Locale.ROOT), row);
+        }
+    }
+
+    private record CellWrite(String sheetName, String columnName, int row, String data) {
+    }
+
+    private static class PendingWrites {
+        private final Map<CellKey, CellWrite> cells = new LinkedHashMap<>();
+        private final ReentrantLock flushLock = new ReentrantLock();
+    }
+
+    // The sheet, column and row are checked here, so the caller that makes a bad write gets the error rather than
+    // whichever thread happens to flush it.
+    public static void write(String filePath, String sheetName, String columnName, int row, String data) throws IOException {
+        WorkbookIndex.getSheet(filePath, sheetName).getColumnIndex(columnName);
+        Path path = toPath(filePath);
+        int lastRow = (path.toString().toLowerCase(Locale.ROOT).endsWith(".xls") ? SpreadsheetVersion.EXCEL97 : SpreadsheetVersion.EXCEL2007).getLastRowIndex();
+        if(row < 0 || row > lastRow){
+            throw new IllegalArgumentException("Row " + row + " is out of range for workbook '" + path + "'. Rows go from 0 to " + lastRow + ".");
+        }
+        PendingWrites pending = pendingWrites.computeIfAbsent(path, key -> new PendingWrites());
+        int size;
+        synchronized (pending){
+            pending.cells.put(CellKey.of(sheetName, columnName, row), new CellWrite(sheetName, columnName, row, data));
+            size = pending.cells.size();
+        }
+        if(size >= FLUSH_SIZE){
+            flush(path, pending);
+        }
+    }
+
+    public static Optional<String> getPendingValue(String filePath, String sheetName, String columnName, int row){
+        PendingWrites pending = pendingWrites.get(toPath(filePath));
+        if(pending == null) return Optional.empty();
+        synchronized (pending){
+            CellWrite write = pending.cells.get(CellKey.of(sheetName, columnName, row));
+            return write == null ? Optional.empty() : Optional.of(write.data());
+        }
+    }
+
+    public static void flush(String filePath) throws IOException {
+        Path path = toPath(filePath);
+        PendingWrites pending = pendingWrites.get(path);
+        if(pending != null) flush(path, pending);
+    }
+
+    public static void flushAll(){
+        for(Map.Entry<Path, PendingWrites> entry: pendingWrites.entrySet()){
+            try{
+                flush(entry.getKey(), entry.getValue());
+            }catch (IOException | RuntimeException e){
+                LogUtil.error("Error while flushing buffered writes to workbook '" + entry.getKey() + "'.", WorkbookWriter.class, e);
+            }
+        }
+    }
+
+    private static Path toPath(String filePath){
+        return Paths.get(filePath).toAbsolutePath().normalize();
+    }
+
+    private static void flush(Path path, PendingWrites pending) throws IOException {
+        pending.flushLock.lock();
+        try{
+            List<CellWrite> writes;
+            synchronized (pending){
+                if(pending.cells.isEmpty()) return;
+                writes = new ArrayList<>(pending.cells.values());
+            }
+            // Writes were validated when they were made, so they can only be rejected here if the workbook changed
+            // since. They are dropped with the batch and logged; the flushing thread may belong to an unrelated test.
+            Map<CellWrite, RuntimeException> rejected = writeAtomically(path, writes);
+            synchronized (pending){
+                for(CellWrite write: writes){
+                    pending.cells.remove(CellKey.of(write.sheetName(), write.columnName(), write.row()), write);
+                }
+            }
+            WorkbookIndex.invalidate(path.toString());
+            LogUtil.info("Flushed {} cell updates to workbook '{}'.", WorkbookWriter.class, writes.size() - rejected.size(), path);
+            if(!rejected.isEmpty()){
+                StringBuilder message = new StringBuilder("Dropped " + rejected.size() + " cell updates to workbook '" + path + "' that could not be applied:");
+                rejected.forEach((write, e) -> message.append(String.format("%n  sheet '%s', column '%s', row %d: %s",
+                        write.sheetName(), write.columnName(), write.row(), e.getMessage())));
+                LogUtil.error(message.toString(), WorkbookWriter.class);
+            }
+        }catch (IOException e){
+            LogUtil.logAndRethrow("Error while writing buffered cell updates to workbook '" + path + "'.", WorkbookWriter.class, e);
+        }finally {
+            pending.flushLock.unlock();
+        }
+    }
+
+    // Returns the writes that could not be applied (unknown sheet or column, invalid row) with their cause.
+    private static Map<CellWrite, RuntimeException> writeAtomically(Path path, List<CellWrite> writes) throws IOException {
+        Map<CellWrite, RuntimeException> rejected = new LinkedHashMap<>();
+        Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try{
+            try(InputStream inputStream = Files.newInputStream(path); Workbook workbook = getWorkbook(inputStream, path.toString())){
+                Map<String, Map<String, Integer>> headingsBySheet = new HashMap<>();
+                for(CellWrite write: writes){
+                    try{
+                        applyWrite(workbook, headingsBySheet, write);
+                    }catch (RuntimeException e){
+                        rejected.put(write, e);
+                    }
+                }
+                if(rejected.size() == writes.size()) return rejected;
+                try(OutputStream outputStream = Files.newOutputStream(tempFile)){
+                    workbook.write(outputStream);
+                }
+            }
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rejected;
+        }finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void applyWrite(Workbook workbook, Map<String, Map<String, Integer>> headingsBySheet, CellWrite write){
+        Sheet sheet = Objects.requireNonNull(workbook.getSheet(write.sheetName()),"'" + write.sheetName() + "' not found.");
+        Map<String, Integer> headings = headingsBySheet.computeIfAbsent(sheet.getSheetName(), name -> getColumnIndexes(sheet));
+        Integer columnIndex = headings.get(write.columnName().strip().toLowerCase(Locale.ROOT));
+        if(columnIndex == null) throw new NoSuchElementException("Column '" + write.columnName() + "' not found.");
+
+        Row targetRow = sheet.getRow(write.row());
+        if(targetRow == null){
+            targetRow = sheet.createRow(write.row());
+        }
+        Cell cell = targetRow.getCell(columnIndex);
+        if(cell == null){
+            cell = targetRow.createCell(columnIndex);
+        }
+        cell.setCellValue(write.data());
+    }
+
+    private static Workbook getWorkbook(InputStream inputStream, String filePath) throws IOException {
+        String loweredFilePath = filePath.toLowerCase();
+        if(loweredFilePath.endsWith(".xls")){
+            return new HSSFWorkbook(inputStream);
+        }else if(loweredFilePath.endsWith(".xlsx")){
+            return new XSSFWorkbook(inputStream);
+        }else{
+            throw new IllegalArgumentException("'" + filePath + "' is not a supported file type. Supported types include '.xls' and '.xlsx'");
+        }
+    }
+
+    private static Map<String, Integer> getColumnIndexes(Sheet sheet){
+        Row headings = Objects.requireNonNull(sheet.getRow(0),"No column headings found the sheet '" + sheet.getSheetName() + "'.");
+        DataFormatter formatter = new DataFormatter();
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for(Cell cell: headings){
+            columnIndexes.put(formatter.formatCellValue(cell).toLowerCase(Locale.ROOT), cell.getColumnIndex());
+        }
+        return columnIndexes;
+    }
+}
@@ -4,8 +4,15 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.Select;
 import testauto.com.common.LogUtil;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class ActionsUtils {
 
@@ -14,6 +21,60 @@ public class ActionsUtils {
     private final PageObjectsUtil pageObjects;
     private static final int DEFAULT_TIMEOUT = 10;
     private final JavascriptExecutor jsExecutor;
+    private final Map<String, WebElement> elementCache = new ConcurrentHashMap<>();
+
+    // Cached handles are re-checked with the cheapest test equivalent to the wait they skip.
+    private static final Predicate<WebElement> PRESENT = webElement -> true;
+    private static final Predicate<WebElement> VISIBLE = WebElement::isDisplayed;
+    private static final Predicate<WebElement> CLICKABLE = webElement -> webElement.isDisplayed() && webElement.isEnabled();
+
+    private static final String FIELD_TYPES_SCRIPT =
+            "return arguments[0].map(function (e) { return [e.tagName.toLowerCase(), (e.type || '').toLowerCase(), e.checked === true]; });";
+
+    // Values are set through the native setter of the element's prototype so that frameworks which track the
+    // value property (e.g. React) see the change, then input and change events are dispatched. Returns
+    // '<index>: <message>' for every field that couldn't be filled.
+    private static final String RADIO_UNCHECK_ERROR = "a radio button can't be unchecked, check another option of its group";
+    private static final String FILL_SCRIPT = """
+            var elements = arguments[0], values = arguments[1], radioUncheckError = arguments[2], errors = [];
+            function setValue(element, value) {
+                var prototype = element instanceof HTMLTextAreaElement ? HTMLTextAreaElement.prototype
+                        : element instanceof HTMLSelectElement ? HTMLSelectElement.prototype : HTMLInputElement.prototype;
+                Object.getOwnPropertyDescriptor(prototype, 'value').set.call(element, value);
+            }
+            function fire(element, type) {
+                element.dispatchEvent(new Event(type, {bubbles: true}));
+            }
+            elements.forEach(function (element, i) {
+                var value = values[i];
+                try {
+                    var type = (element.type || '').toLowerCase();
+                    if (type === 'checkbox' || type === 'radio') {
+                        var checked = value === true || String(value).toLowerCase() === 'true';
+                        if (type === 'radio' && !checked) throw new Error(radioUncheckError);
+                        if (element.checked !== checked) element.click();
+                        return;
+                    }
+                    element.focus();
+                    if (element.tagName === 'SELECT') {
+                        var options = Array.from(element.options);
+                        var option = options.find(function (o) { return o.text.trim() === String(value); })
+                                || options.find(function (o) { return o.value === String(value); });
+                        if (!option) throw new Error("no option '" + value + "'");
+                        if (element.multiple) option.selected = true;
+                        else setValue(element, option.value);
+                    } else {
+                        setValue(element, String(value));
+                    }
+                    fire(element, 'input');
+                    fire(element, 'change');
+                    element.blur();
+                } catch (error) {
+                    errors.push(i + ': ' + error.message);
+                }
+            });
+            return errors;
+            """;
 
     public ActionsUtils(WebDriver driver, String pageObjectsFilePath) {
         Objects.requireNonNull(driver, "Cannot instantiate ActionsUtil with a null driver reference.");
@@ -23,12 +84,57 @@ public class ActionsUtils {
         pageObjects = new PageObjectsUtil(pageObjectsFilePath);
     }
 
+    @FunctionalInterface
+    private interface ElementWait {
+        WebElement await(By elementBy) throws Exception;
+    }
+
+    // Runs the action on the cached handle of the element when it is still usable, otherwise waits for the element
+    // and acts on the handle the wait returned. A handle that goes stale before the action is resolved once more;
+    // any other failure of the action is rethrown rather than repeated.
+    private void perform(String element, Predicate<WebElement> ready, ElementWait wait, Consumer<WebElement> action) throws Exception {
+        WebElement cached = elementCache.get(element);
+        if(cached != null){
+            boolean usable;
+            try{
+                usable = ready.test(cached);
+            }catch (StaleElementReferenceException | InvalidElementStateException | NoSuchElementException e){
+                LogUtil.debug("Re-resolving cached element '{}' after {}.", ActionsUtils.class, element, e.getClass().getSimpleName());
+                usable = false;
+            }
+            if(usable){
+                try{
+                    action.accept(cached);
+                    return;
+                }catch (StaleElementReferenceException e){
+                    LogUtil.debug("Cached element '{}' went stale before the action, re-resolving it.", ActionsUtils.class, element);
+                }
+            }
+            elementCache.remove(element);
+        }
+
+        By elementBy = pageObjects.getElementBy(element);
+        WebElement webElement = resolve(element, elementBy, wait);
+        try{
+            action.accept(webElement);
+        }catch (StaleElementReferenceException e){
+            LogUtil.debug("Element '{}' went stale before the action, re-resolving it.", ActionsUtils.class, element);
+            webElement = resolve(element, elementBy, wait);
+            action.accept(webElement);
+        }
+        elementCache.put(element, webElement);
+    }
+
+    private static WebElement resolve(String element, By elementBy, ElementWait wait) throws Exception {
+        WebElement webElement = wait.await(elementBy);
+        if(webElement == null) throw new NoSuchElementException("Element '" + element + "' (" + elementBy + ") was not found.");
+        return webElement;
+    }
+
     public void click(String element, int timeout) throws Exception {
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBeClickable(element, elementBy, timeout);
-            driver.findElement(elementBy).click();
-            LogUtil.info("Clicked on '" + element + "'", ActionsUtils.class);
+            perform(element, CLICKABLE, elementBy -> waits.waitForElementToBeClickable(element, elementBy, timeout), WebElement::click);
+            LogUtil.info("Clicked on '{}'", ActionsUtils.class, element);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting click on '" + element + "'.", ActionsUtils.class, e);
         }
@@ -40,12 +146,11 @@ public class ActionsUtils {
 
     public void enter(String element, String data, int timeout) throws Exception {
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBeClickable(element, elementBy, timeout);
-            WebElement field = driver.findElement(elementBy);
-            field.clear();
-            field.sendKeys(data);
-            LogUtil.info("Entered '" + data + "' into '" + element + "'", ActionsUtils.class);
+            perform(element, CLICKABLE, elementBy -> waits.waitForElementToBeClickable(element, elementBy, timeout), field -> {
+                field.clear();
+                field.sendKeys(data);
+            });
+            LogUtil.info("Entered '{}' into '{}'", ActionsUtils.class, data, element);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting to enter '" + data + "' into '" + element + "'.", ActionsUtils.class, e);
         }
@@ -56,31 +161,9 @@ public class ActionsUtils {
     }
 
     public <T> void select(String element, int timeout, String strategy, T data) throws Exception {
-        Select select;
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBeClickable(element, elementBy, timeout);
-            select = new Select(driver.findElement(elementBy));
-
-            switch (strategy.toLowerCase()) {
-                case "visible_text":
-                    select.selectByVisibleText(String.valueOf(data));
-                    break;
-                case "contains_visible_text":
-                    select.selectByContainsVisibleText(String.valueOf(data));
-                    break;
-                case "value":
-                    select.selectByValue(String.valueOf(data));
-                    break;
-                case "index":
-                    if (data instanceof Integer) select.selectByIndex((int) data);
-                    else throw new IllegalArgumentException("Index has to be of integer type.");
-                    break;
-                default:
-                    throw new IllegalArgumentException("'" + strategy + "' is not a supported selection strategy. Supported selection include: visible_text, contains_visible_text, value and index.");
-            }
-
-            LogUtil.info("Selected '" + data + "' from '" + element + "' using strategy '" + strategy + "'", ActionsUtils.class);
+            perform(element, CLICKABLE, elementBy -> waits.waitForElementToBeClickable(element, elementBy, timeout), webElement -> applySelection(new Select(webElement), strategy, data));
+            LogUtil.info("Selected '{}' from '{}' using strategy '{}'", ActionsUtils.class, data, element, strategy);
 
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting to select '" + data + "' from '" + element + "'.", ActionsUtils.class, e);
@@ -92,34 +175,9 @@ public class ActionsUtils {
     }
 
     public <T> void deselect(String element, int timeout, String strategy, T data) throws Exception {
-        Select select;
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBeClickable(element, elementBy, timeout);
-            select = new Select(driver.findElement(elementBy));
-
-            switch (strategy.toLowerCase()) {
-                case "visible_text":
-                    select.deselectByVisibleText(String.valueOf(data));
-                    break;
-                case "contains_visible_text":
-                    select.deSelectByContainsVisibleText(String.valueOf(data));
-                    break;
-                case "value":
-                    select.deselectByValue(String.valueOf(data));
-                    break;
-                case "index":
-                    if (data instanceof Integer) select.deselectByIndex((int) data);
-                    else throw new IllegalArgumentException("Index has to be of integer type.");
-                    break;
-                case "all":
-                    select.deselectAll();
-                    break;
-                default:
-                    throw new IllegalArgumentException("'" + strategy.toLowerCase() + "' is not a supported selection strategy. Supported selection include: visible_text, contains_visible_text, value, index and all.");
-            }
-
-            LogUtil.info("Deselected '" + data + "' from '" + element + "' using strategy '" + strategy + "'", ActionsUtils.class);
+            perform(element, CLICKABLE, elementBy -> waits.waitForElementToBeClickable(element, elementBy, timeout), webElement -> applyDeselection(new Select(webElement), strategy, data));
+            LogUtil.info("Deselected '{}' from '{}' using strategy '{}'", ActionsUtils.class, data, element, strategy);
 
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting to deselect '" + data + "' from '" + element + "'.", ActionsUtils.class, e);
@@ -130,13 +188,111 @@ public class ActionsUtils {
         deselect(element, DEFAULT_TIMEOUT, strategy, data);
     }
 
+    public Map<String, WebElement> waitForElements(Map<String, WaitCondition> elements, int timeout) throws Exception {
+        Map<String, WebElement> ready = null;
+        try {
+            Map<String, By> elementBys = new LinkedHashMap<>();
+            for (String element : elements.keySet()) {
+                elementBys.put(element, pageObjects.getElementBy(element));
+            }
+            ready = waits.waitForElements(elementBys, elements, timeout);
+            ready.forEach((element, webElement) -> {
+                if (webElement != null) elementCache.put(element, webElement);
+            });
+        } catch (Exception e) {
+            LogUtil.logAndRethrow("Error while waiting for elements " + elements.keySet() + ".", ActionsUtils.class, e);
+        }
+        return ready;
+    }
+
+    public Map<String, WebElement> waitForElements(WaitCondition condition, String... elements) throws Exception {
+        Map<String, WaitCondition> conditions = new LinkedHashMap<>();
+        for (String element : elements) {
+            conditions.put(element, condition);
+        }
+        return waitForElements(conditions, DEFAULT_TIMEOUT);
+    }
+
+    // Fills the fields in the map's iteration order (use a LinkedHashMap) after one wait for all of them. Text
+    // fields take the value's string form, selects pick the option by visible text or else by value, checkboxes
+    // are set to the boolean value and radio buttons can only be set to true. With withJs all fields are set in one
+    // script call that fires input and change events; otherwise the native calls follow one script reading field types.
+    public void fillForm(Map<String, ?> fields, boolean withJs, int timeout) throws Exception {
+        try {
+            Map<String, WaitCondition> conditions = new LinkedHashMap<>();
+            fields.keySet().forEach(field -> conditions.put(field, WaitCondition.CLICKABLE));
+            try {
+                fill(fields, waitForElements(conditions, timeout), withJs);
+            } catch (StaleElementReferenceException e) {
+                LogUtil.debug("Form fields went stale while filling, resolving them again.", ActionsUtils.class);
+                fill(fields, waitForElements(conditions, timeout), withJs);
+            }
+            LogUtil.info(withJs ? "Filled fields {} with javascript executor." : "Filled fields {}.", ActionsUtils.class, fields.keySet());
+        } catch (Exception e) {
+            LogUtil.logAndRethrow("Error while attempting to fill fields " + fields.keySet() + ".", ActionsUtils.class, e);
+        }
+    }
+
+    public void fillForm(Map<String, ?> fields, boolean withJs) throws Exception {
+        fillForm(fields, withJs, DEFAULT_TIMEOUT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fill(Map<String, ?> fields, Map<String, WebElement> webElements, boolean withJs){
+        List<WebElement> elements = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            elements.add(webElements.get(field));
+            values.add(value instanceof Boolean ? value : String.valueOf(value));
+        });
+
+        if (withJs) {
+            List<String> errors = (List<String>) jsExecutor.executeScript(FILL_SCRIPT, elements, values, RADIO_UNCHECK_ERROR);
+            if (errors != null && !errors.isEmpty()) {
+                List<String> fieldNames = new ArrayList<>(fields.keySet());
+                List<String> failures = new ArrayList<>();
+                errors.forEach(error -> {
+                    int separator = error.indexOf(':');
+                    failures.add(fieldNames.get(Integer.parseInt(error.substring(0, separator))) + error.substring(separator));
+                });
+                throw new InvalidElementStateException("Couldn't fill " + failures + ".");
+            }
+            return;
+        }
+
+        List<List<Object>> fieldTypes = (List<List<Object>>) jsExecutor.executeScript(FIELD_TYPES_SCRIPT, elements);
+        List<String> fieldNames = new ArrayList<>(fields.keySet());
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            WebElement field = elements.get(i);
+            String tagName = (String) fieldTypes.get(i).get(0);
+            String type = (String) fieldTypes.get(i).get(1);
+            String value = String.valueOf(values.get(i));
+            if ("select".equals(tagName)) {
+                Select select = new Select(field);
+                try {
+                    select.selectByVisibleText(value);
+                } catch (NoSuchElementException e) {
+                    select.selectByValue(value);
+                }
+            } else if ("radio".equals(type) && !Boolean.parseBoolean(value)) {
+                failures.add(fieldNames.get(i) + ": " + RADIO_UNCHECK_ERROR);
+            } else if ("checkbox".equals(type) || "radio".equals(type)) {
+                if (Boolean.TRUE.equals(fieldTypes.get(i).get(2)) != Boolean.parseBoolean(value)) field.click();
+            } else {
+                field.clear();
+                field.sendKeys(value);
+            }
+        }
+        if (!failures.isEmpty()) throw new InvalidElementStateException("Couldn't fill " + failures + ".");
+    }
+
     public void clickWithJs(String element, boolean mustExist, int timeout) throws Exception {
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBePresent(element, elementBy, mustExist, timeout);
             String script = "arguments[0].click();";
-            jsExecutor.executeScript(script, driver.findElement(elementBy));
-            LogUtil.info("Clicked on element '" + element + "' with javascript executor.", ActionsUtils.class);
+            perform(element, PRESENT, elementBy -> waits.waitForElementToBePresent(element, elementBy, mustExist, timeout),
+                    webElement -> jsExecutor.executeScript(script, webElement));
+            LogUtil.info("Clicked on element '{}' with javascript executor.", ActionsUtils.class, element);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting click on element '" + element + "' with javascript executor.", ActionsUtils.class, e);
         }
@@ -158,10 +314,9 @@ public class ActionsUtils {
 
     public void scrollToElement(String element, boolean mustExist, int timeout) throws Exception {
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBeDisplayed(element, elementBy, mustExist, timeout);
-            jsExecutor.executeScript("arguments[0].scrollIntoView({block:'center'});", driver.findElement(elementBy));
-            LogUtil.info("Scrolled to element '" + element + "'.", ActionsUtils.class);
+            perform(element, VISIBLE, elementBy -> waits.waitForElementToBeDisplayed(element, elementBy, mustExist, timeout),
+                    webElement -> jsExecutor.executeScript("arguments[0].scrollIntoView({block:'center'});", webElement));
+            LogUtil.info("Scrolled to element '{}'.", ActionsUtils.class, element);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting scroll to element '" + element + "'.", ActionsUtils.class, e);
         }
@@ -175,7 +330,7 @@ public class ActionsUtils {
         try {
             String script = String.format("window.scrollBy(%d,%d);", x, y);
             jsExecutor.executeScript(script);
-            LogUtil.info("Scrolled by x: " + x + ", y: " + y, ActionsUtils.class);
+            LogUtil.info("Scrolled by x: {}, y: {}", ActionsUtils.class, x, y);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting to scroll by x=" + x + " and y=" + y + ".", ActionsUtils.class, e);
         }
@@ -183,16 +338,58 @@ public class ActionsUtils {
 
     public void enterDataWithJs(String element, boolean mustExist, String data, int timeout) throws Exception {
         try {
-            By elementBy = pageObjects.getElementBy(element);
-            waits.waitForElementToBePresent(element, elementBy, mustExist, timeout);
             String script = "arguments[0].value='" + data.replace("'", "\\'") + "';";
-            jsExecutor.executeScript(script, driver.findElement(elementBy));
-            LogUtil.info("Successfully set value '" + data + "' into field '" + element + "'.", ActionsUtils.class);
+            perform(element, PRESENT, elementBy -> waits.waitForElementToBePresent(element, elementBy, mustExist, timeout),
+                    webElement -> jsExecutor.executeScript(script, webElement));
+            LogUtil.info("Successfully set value '{}' into field '{}'.", ActionsUtils.class, data, element);
         } catch (Exception e) {
             LogUtil.logAndRethrow("Error while attempting to set value '" + data + "' with javascript executor into field '" + element + "'.", ActionsUtils.class, e);
         }
     }
 
+    private static <T> void applySelection(Select select, String strategy, T data){
+        switch (strategy.toLowerCase()) {
+            case "visible_text":
+                select.selectByVisibleText(String.valueOf(data));
+                break;
+            case "contains_visible_text":
+                select.selectByContainsVisibleText(String.valueOf(data));
+                break;
+            case "value":
+                select.selectByValue(String.valueOf(data));
+                break;
+            case "index":
+                if (data instanceof Integer) select.selectByIndex((int) data);
+                else throw new IllegalArgumentException("Index has to be of integer type.");
+                break;
+            default:
+                throw new IllegalArgumentException("'" + strategy + "' is not a supported selection strategy. Supported selection include: visible_text, contains_visible_text, value and index.");
+        }
+    }
+
+    private static <T> void applyDeselection(Select select, String strategy, T data){
+        switch (strategy.toLowerCase()) {
+            case "visible_text":
+                select.deselectByVisibleText(String.valueOf(data));
+                break;
+            case "contains_visible_text":
+                select.deSelectByContainsVisibleText(String.valueOf(data));
+                break;
+            case "value":
+                select.deselectByValue(String.valueOf(data));
+                break;
+            case "index":
+                if (data instanceof Integer) select.deselectByIndex((int) data);
+                else throw new IllegalArgumentException("Index has to be of integer type.");
+                break;
+            case "all":
+                select.deselectAll();
+                break;
+            default:
+                throw new IllegalArgumentException("'" + strategy.toLowerCase() + "' is not a supported selection strategy. Supported selection include: visible_text, contains_visible_text, value, index and all.");
+        }
+    }
+
     private Optional<Alert> getAlertIfPresent() {
         try {
             Alert alert = driver.switchTo().alert();
@@ -239,7 +436,7 @@ public class ActionsUtils {
             if (alert.isPresent()) {
                 LogUtil.info("Alert is present.", ActionsUtils.class);
                 String extractedText = alert.get().getText();
-                LogUtil.info("Extracted text '" + extractedText + "' from alert.", ActionsUtils.class);
+                LogUtil.info("Extracted text '{}' from alert.", ActionsUtils.class, extractedText);
                 return Optional.of(extractedText);
             } else {
                 LogUtil.info("Alert is not present.", ActionsUtils.class);
@@ -256,7 +453,7 @@ public class ActionsUtils {
             if (alert.isPresent()) {
                 LogUtil.info("Alert is present.", ActionsUtils.class);
                 alert.get().sendKeys(data);
-                LogUtil.info("Entered '" + data + "' to prompt box.", ActionsUtils.class);
+                LogUtil.info("Entered '{}' to prompt box.", ActionsUtils.class, data);
             } else {
                 LogUtil.info("Alert is not present.", ActionsUtils.class);
             }
@@ -0,0 +1,195 @@
+package testauto.com.ui.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import testauto.com.common.LatencyHistogram;
+import testauto.com.common.LogUtil;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CommandMetrics implements WebDriverListener {
+
+    private static final String DEFAULT_DIRECTORY = "target/command-metrics";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Calls that only hand out another driver facade or unwrap a proxy never reach the browser.
+    private static final Set<String> LOCAL_CALLS = Set.of("manage", "switchTo", "navigate", "timeouts", "window", "logs",
+            "getWrappedDriver", "getWrappedElement", "getId", "toString", "hashCode", "equals");
+
+    private static final Map<Key, LatencyHistogram> suiteHistograms = new ConcurrentHashMap<>();
+    private static final ThreadLocal<TestMetrics> currentTest = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<Long>> startTimes = ThreadLocal.withInitial(ArrayDeque::new);
+    // Keyed by locator instance: equal locators of different pages, e.g. two 'submit' buttons with the same id,
+    // keep their own names. The repository caches its locators, so the instances live for the whole run anyway.
+    private static final Map<By, String> elementNames = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<WebElement, String> foundElements = Collections.synchronizedMap(new WeakHashMap<>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> export("suite", suiteHistograms), "command-metrics"));
+    }
+
+    private record Key(String command, String element) {
+    }
+
+    private record TestMetrics(String name, Map<Key, LatencyHistogram> histograms) {
+    }
+
+    public record Row(String command, String element, long count, double meanMillis, double p50Millis, double p90Millis,
+                      double p99Millis, double maxMillis) {
+    }
+
+    public static boolean isEnabled(){
+        return Boolean.parseBoolean(System.getProperty("command-metrics", "false"));
+    }
+
+    static WebDriver instrument(WebDriver driver){
+        if(!isEnabled()) return driver;
+        LogUtil.info("Recording command latencies to '{}'.", CommandMetrics.class, getDirectory());
+        return new EventFiringDecorator<>(new CommandMetrics()).decorate(driver);
+    }
+
+    static void registerElement(By by, String element){
+        if(isEnabled()) elementNames.put(by, element);
+    }
+
+    public static void startTest(String testName){
+        currentTest.set(new TestMetrics(testName, new ConcurrentHashMap<>()));
+    }
+
+    // Writes the histograms of the current test to <directory>/<test name>.json and .csv and returns them.
+    public static List<Row> endTest(){
+        TestMetrics test = currentTest.get();
+        if(test == null) return List.of();
+        currentTest.remove();
+        export(test.name(), test.histograms());
+        return toRows(test.histograms());
+    }
+
+    public static List<Row> getTestMetrics(){
+        TestMetrics test = currentTest.get();
+        return test == null ? List.of() : toRows(test.histograms());
+    }
+
+    public static List<Row> getSuiteMetrics(){
+        return toRows(suiteHistograms);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args){
+        if(LOCAL_CALLS.contains(method.getName())) return;
+        startTimes.get().push(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result){
+        if(LOCAL_CALLS.contains(method.getName())) return;
+        String element = getElementName(target, args);
+        record(method.getName(), element);
+        if(element.isEmpty()) return;
+        if(result instanceof WebElement foundElement){
+            foundElements.put(unwrap(foundElement), element);
+        }else if(result instanceof List<?> foundList){
+            foundList.forEach(found -> {
+                if(found instanceof WebElement foundElement) foundElements.put(unwrap(foundElement), element);
+            });
+        }
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e){
+        if(LOCAL_CALLS.contains(method.getName())) return;
+        record(method.getName(), getElementName(target, args));
+    }
+
+    private static void record(String command, String element){
+        Long start = startTimes.get().poll();
+        if(start == null) return;
+        long elapsedNanos = System.nanoTime() - start;
+        Key key = new Key(command, element);
+        suiteHistograms.computeIfAbsent(key, k -> new LatencyHistogram()).record(elapsedNanos);
+        TestMetrics test = currentTest.get();
+        if(test != null) test.histograms().computeIfAbsent(key, k -> new LatencyHistogram()).record(elapsedNanos);
+    }
+
+    // Lookups are named after the repository element of their locator, and calls on a found element inherit its name.
+    private static String getElementName(Object target, Object[] args){
+        if(args != null){
+            for(Object arg: args){
+                if(arg instanceof RankedBy ranked) return ranked.getElement();
+                if(arg instanceof By by){
+                    String name = elementNames.get(by);
+                    return name == null ? "" : name;
+                }
+            }
+        }
+        if(target instanceof WebElement element){
+            String name = foundElements.get(unwrap(element));
+            return name == null ? "" : name;
+        }
+        return "";
+    }
+
+    private static WebElement unwrap(WebElement element){
+        return element instanceof WrapsElement wrapper ? wrapper.getWrappedElement() : element;
+    }
+
+    private static List<Row> toRows(Map<Key, LatencyHistogram> histograms){
+        List<Row> rows = new ArrayList<>();
+        histograms.forEach((key, histogram) -> rows.add(new Row(key.command(), key.element(), histogram.getCount(),
+                histogram.getMeanMillis(), histogram.getPercentileMillis(50), histogram.getPercentileMillis(90),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis())));
+        rows.sort(Comparator.comparing(Row::command).thenComparing(Row::element));
+        return rows;
+    }
+
+    private static Path getDirectory(){
+        return Paths.get(System.getProperty("command-metrics-dir", DEFAULT_DIRECTORY));
+    }
+
+    private static void export(String name, Map<Key, LatencyHistogram> histograms){
+        if(histograms.isEmpty()) return;
+        List<Row> rows = toRows(histograms);
+        Path directory = getDirectory();
+        String fileName = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        try{
+            Files.createDirectories(directory);
+            Path jsonFile = Files.createTempFile(directory, fileName, ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonFile.toFile(), rows);
+            Files.move(jsonFile, directory.resolve(fileName + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<String> lines = new ArrayList<>();
+            lines.add("command,element,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+            rows.forEach(row -> lines.add(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f", row.command(),
+                    row.element(), row.count(), row.meanMillis(), row.p50Millis(), row.p90Millis(), row.p99Millis(), row.maxMillis())));
+            Path csvFile = Files.createTempFile(directory, fileName, ".tmp");
+            Files.write(csvFile, lines);
+            Files.move(csvFile, directory.resolve(fileName + ".csv"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LogUtil.debug("Command metrics of '{}' written to '{}'.", CommandMetrics.class, name, directory);
+        }catch (IOException e){
+            LogUtil.warn("Couldn't write command metrics of '{}' to '{}': {}", CommandMetrics.class, name, directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package testauto.com.ui.utils;
+
+import testauto.com.common.FilesUtil;
+import testauto.com.common.LogUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DevicePool {
+
+    private static final Map<String, DevicePool> pools = new ConcurrentHashMap<>();
+    private static final String DEVICE_PREFIX = "device.";
+
+    private final BlockingDeque<Device> freeDevices = new LinkedBlockingDeque<>();
+    private final AtomicInteger healthyDevices = new AtomicInteger();
+    private final int maxFailures;
+    private final int leaseTimeout;
+    private final int size;
+
+    class Device {
+        private final String name;
+        private final URL appiumServer;
+        private final Map<String, Object> capabilities;
+        private int consecutiveFailures;
+
+        private Device(String name, URL appiumServer, Map<String, Object> capabilities){
+            this.name = name;
+            this.appiumServer = appiumServer;
+            this.capabilities = Collections.unmodifiableMap(capabilities);
+        }
+
+        String getName(){
+            return name;
+        }
+
+        URL getAppiumServer(){
+            return appiumServer;
+        }
+
+        Map<String, Object> getCapabilities(){
+            return capabilities;
+        }
+
+        void release(boolean sessionFailed){
+            DevicePool.this.release(this, sessionFailed);
+        }
+    }
+
+    private DevicePool(Properties properties, String[] deviceNames, URL defaultServer) throws MalformedURLException {
+        maxFailures = Integer.parseInt(properties.getProperty("device.maxFailures", "3").strip());
+        leaseTimeout = Integer.parseInt(properties.getProperty("device.leaseTimeout", "600").strip());
+        for(String deviceName: deviceNames){
+            String name = deviceName.strip();
+            String prefix = DEVICE_PREFIX + name + ".";
+            String server = properties.getProperty(prefix + "appiumServer");
+            Map<String, Object> capabilities = new LinkedHashMap<>();
+            for(String key: properties.stringPropertyNames()){
+                if(key.startsWith(prefix) && !key.equals(prefix + "appiumServer")){
+                    capabilities.put("appium:" + key.substring(prefix.length()), toCapabilityValue(properties.getProperty(key).strip()));
+                }
+            }
+            freeDevices.offer(new Device(name, server == null ? defaultServer : new URL(server.strip()), capabilities));
+        }
+        size = freeDevices.size();
+        healthyDevices.set(size);
+    }
+
+    private static Object toCapabilityValue(String value){
+        if(value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) return Boolean.parseBoolean(value);
+        if(value.matches("\\d{1,9}")) return Integer.parseInt(value);
+        return value;
+    }
+
+    static DevicePool of(String propertiesPath){
+        return pools.computeIfAbsent(propertiesPath, path -> {
+            try{
+                Properties properties = FilesUtil.getProperties(path);
+                String devices = properties.getProperty("device.pool", "");
+                if(devices.isBlank()) return null;
+                URL defaultServer = new URL(properties.getProperty("appiumServer"));
+                DevicePool pool = new DevicePool(properties, devices.split(","), defaultServer);
+                LogUtil.info("Loaded device pool of {} devices from '{}'.", DevicePool.class, pool.size, path);
+                return pool;
+            }catch (IOException e){
+                throw new UncheckedIOException("Couldn't load device pool from '" + path + "'.", e);
+            }
+        });
+    }
+
+    int size(){
+        return size;
+    }
+
+    Device lease(){
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseTimeout);
+        try{
+            while(System.nanoTime() < deadline){
+                if(healthyDevices.get() == 0){
+                    throw new IllegalStateException("No healthy devices left in the pool. Every device failed " + maxFailures + " consecutive sessions.");
+                }
+                Device device = freeDevices.poll(1, TimeUnit.SECONDS);
+                if(device != null){
+                    LogUtil.info("Leased device '{}' to thread '{}'.", DevicePool.class, device.name, Thread.currentThread().getName());
+                    return device;
+                }
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free device.", e);
+        }
+        throw new IllegalStateException("Timed out after " + leaseTimeout + " seconds waiting for a free device.");
+    }
+
+    private void release(Device device, boolean sessionFailed){
+        synchronized (device){
+            if(!sessionFailed){
+                device.consecutiveFailures = 0;
+            }else if(++device.consecutiveFailures >= maxFailures){
+                healthyDevices.decrementAndGet();
+                LogUtil.error("Removed device '" + device.name + "' from the pool after " + device.consecutiveFailures + " consecutive session failures.", DevicePool.class);
+                return;
+            }else{
+                LogUtil.warn("Session failure {} of {} on device '{}'.", DevicePool.class, device.consecutiveFailures, maxFailures, device.name);
+            }
+        }
+        // Healthy devices go to the front so work concentrates on devices that are known to work.
+        if(sessionFailed) freeDevices.offerLast(device);
+        else freeDevices.offerFirst(device);
+    }
+}
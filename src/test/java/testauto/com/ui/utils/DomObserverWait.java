@@ -0,0 +1,185 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class DomObserverWait {
+
+    private static final Duration SCRIPT_TIMEOUT_MARGIN = Duration.ofSeconds(5);
+    private static final String TIMED_OUT = "testauto:timeout";
+
+    // check() resolves one locator list against a condition and returns the element (true for INVISIBLE) or null.
+    // observe() runs a test immediately, then again on every DOM mutation and every 100 ms for changes that produce
+    // no mutation (CSS transitions, layout), and calls back with its first non-null result or the timeout result.
+    private static final String FUNCTIONS = """
+            function findOne(locator) {
+                var value = locator.value;
+                switch (locator.using) {
+                    case 'css selector': return document.querySelector(value);
+                    case 'xpath': return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+                    case 'tag name': return document.getElementsByTagName(value)[0] || null;
+                    case 'link text': return Array.from(document.querySelectorAll('a')).find(function (a) { return a.textContent.trim() === value; }) || null;
+                    case 'partial link text': return Array.from(document.querySelectorAll('a')).find(function (a) { return a.textContent.indexOf(value) >= 0; }) || null;
+                    default: throw new Error('Unsupported locator strategy: ' + locator.using);
+                }
+            }
+            function find(locators) {
+                for (var i = 0; i < locators.length; i++) {
+                    var element = findOne(locators[i]);
+                    if (element) return element;
+                }
+                return null;
+            }
+            function isVisible(element) {
+                if (!element.isConnected) return false;
+                for (var node = element; node && node.nodeType === 1; node = node.parentElement) {
+                    var style = getComputedStyle(node);
+                    if (style.display === 'none' || (node === element && style.visibility === 'hidden') || style.opacity === '0') return false;
+                }
+                var rect = element.getBoundingClientRect();
+                return rect.width > 0 && rect.height > 0;
+            }
+            function check(locators, condition) {
+                var element = find(locators);
+                switch (condition) {
+                    case 'PRESENT': return element;
+                    case 'VISIBLE': return element && isVisible(element) ? element : null;
+                    case 'CLICKABLE': return element && isVisible(element) && !element.disabled ? element : null;
+                    case 'INVISIBLE': return !element || !isVisible(element) ? true : null;
+                }
+            }
+            function checkAll(specs) {
+                var ready = {}, missing = [];
+                specs.forEach(function (spec) {
+                    var result = check(spec.locators, spec.condition);
+                    if (result) ready[spec.name] = result;
+                    else missing.push(spec.name);
+                });
+                return {ready: ready, missing: missing};
+            }
+            function observe(test, onTimeout, timeoutMillis, callback) {
+                var done = false, observer, interval, timer;
+                function finish(result) {
+                    if (done) return;
+                    done = true;
+                    observer.disconnect();
+                    clearInterval(interval);
+                    clearTimeout(timer);
+                    callback(result);
+                }
+                function onChange() {
+                    var result = test();
+                    if (result) finish(result);
+                }
+                observer = new MutationObserver(onChange);
+                observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});
+                interval = setInterval(onChange, 100);
+                timer = setTimeout(function () { finish(onTimeout()); }, timeoutMillis);
+                onChange();
+            }
+            """;
+
+    private static final String OBSERVE_ONE_SCRIPT = FUNCTIONS + """
+            var locators = arguments[0], condition = arguments[1];
+            observe(function () { return check(locators, condition); }, function () { return 'testauto:timeout'; },
+                    arguments[2], arguments[arguments.length - 1]);
+            """;
+
+    private static final String CHECK_ALL_SCRIPT = FUNCTIONS + """
+            return checkAll(arguments[0]);
+            """;
+
+    private static final String OBSERVE_ALL_SCRIPT = FUNCTIONS + """
+            var specs = arguments[0];
+            observe(function () { var result = checkAll(specs); return result.missing.length ? null : result; },
+                    function () { var result = checkAll(specs); result.timedOut = true; return result; },
+                    arguments[1], arguments[arguments.length - 1]);
+            """;
+
+    private final WebDriver driver;
+
+    DomObserverWait(WebDriver driver){
+        this.driver = driver;
+    }
+
+    static boolean isSupported(WebDriver driver, By by){
+        return driver instanceof JavascriptExecutor && toScriptLocators(by) != null;
+    }
+
+    static boolean isSupported(WebDriver driver, Map<String, By> elements){
+        if(!(driver instanceof JavascriptExecutor)) return false;
+        for(By by: elements.values()){
+            if(toScriptLocators(by) == null) return false;
+        }
+        return true;
+    }
+
+    Object until(By by, WaitCondition condition, Duration timeout){
+        Object result = executeAsync(timeout, OBSERVE_ONE_SCRIPT, toScriptLocators(by), condition.name(), timeout.toMillis());
+        if(result == null || TIMED_OUT.equals(result)){
+            throw new TimeoutException("Expected condition " + condition + " of " + by + " not met within " + timeout.toMillis() + " ms.");
+        }
+        return result;
+    }
+
+    // Evaluates every element in one script call. The result holds 'ready' (name to element, or true for
+    // INVISIBLE) and 'missing' (names whose condition does not hold yet).
+    @SuppressWarnings("unchecked")
+    Map<String, Object> checkAll(Map<String, By> elements, Map<String, WaitCondition> conditions){
+        return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(CHECK_ALL_SCRIPT, toSpecs(elements, conditions));
+    }
+
+    // Same result as checkAll, delivered once every condition holds or, with 'timedOut' set, when the timeout expires.
+    @SuppressWarnings("unchecked")
+    Map<String, Object> untilAll(Map<String, By> elements, Map<String, WaitCondition> conditions, Duration timeout){
+        return (Map<String, Object>) executeAsync(timeout, OBSERVE_ALL_SCRIPT, toSpecs(elements, conditions), timeout.toMillis());
+    }
+
+    private Object executeAsync(Duration timeout, String script, Object... arguments){
+        return executeAsync(driver, timeout, script, arguments);
+    }
+
+    // Raises the script timeout above the in-page timeout for the call, so the page reports its own timeout.
+    static Object executeAsync(WebDriver driver, Duration timeout, String script, Object... arguments){
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        Duration previousScriptTimeout = timeouts.getScriptTimeout();
+        timeouts.scriptTimeout(timeout.plus(SCRIPT_TIMEOUT_MARGIN));
+        try{
+            return ((JavascriptExecutor) driver).executeAsyncScript(script, arguments);
+        }finally {
+            timeouts.scriptTimeout(previousScriptTimeout);
+        }
+    }
+
+    private static List<Map<String, Object>> toSpecs(Map<String, By> elements, Map<String, WaitCondition> conditions){
+        List<Map<String, Object>> specs = new ArrayList<>();
+        elements.forEach((name, by) -> {
+            Map<String, Object> spec = new LinkedHashMap<>();
+            spec.put("name", name);
+            spec.put("locators", toScriptLocators(by));
+            spec.put("condition", conditions.get(name).name());
+            specs.add(spec);
+        });
+        return specs;
+    }
+
+    // Uses the W3C locator a By sends to the driver, so only remotable locators (and rankings of them) translate.
+    private static List<Map<String, String>> toScriptLocators(By by){
+        List<Map<String, String>> locators = new ArrayList<>();
+        List<By> candidates = by instanceof RankedBy ranked ? ranked.getCandidates() : List.of(by);
+        for(By candidate: candidates){
+            if(!(candidate instanceof By.Remotable remotable)) return null;
+            By.Remotable.Parameters parameters = remotable.getRemoteParameters();
+            locators.add(Map.of("using", parameters.using(), "value", String.valueOf(parameters.value())));
+        }
+        return locators;
+    }
+}
@@ -0,0 +1,129 @@
+package testauto.com.ui.utils;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import testauto.com.common.LogUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+class DriverBinaryCache {
+
+    private static final Map<String, Path> resolvedDrivers = new ConcurrentHashMap<>();
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+
+    private DriverBinaryCache(){
+    }
+
+    static synchronized void setup(String browser) throws IOException {
+        String driverProperty = getDriverProperty(browser);
+        Path driverPath = resolvedDrivers.get(browser);
+        if(driverPath != null){
+            System.setProperty(driverProperty, driverPath.toString());
+            return;
+        }
+
+        WebDriverManager manager = getManager(browser);
+        String fingerprint = getBrowserFingerprint(manager);
+        Path cacheFile = getCacheFile();
+        Properties cache = load(cacheFile);
+        String cachedDriver = cache.getProperty(browser);
+
+        // Without a fingerprint a browser upgrade can't be detected, so the cache is neither used nor updated.
+        if(fingerprint != null && cachedDriver != null && fingerprint.equals(cache.getProperty(browser + FINGERPRINT_SUFFIX)) && Files.isExecutable(Paths.get(cachedDriver))){
+            driverPath = Paths.get(cachedDriver);
+            LogUtil.info("Using cached {} driver '{}'.", DriverBinaryCache.class, browser, driverPath);
+        }else{
+            try{
+                manager.setup();
+                driverPath = Paths.get(manager.getDownloadedDriverPath());
+                if(fingerprint != null){
+                    cache.setProperty(browser, driverPath.toString());
+                    cache.setProperty(browser + FINGERPRINT_SUFFIX, fingerprint);
+                    store(cache, cacheFile);
+                    LogUtil.info("Resolved {} driver {} to '{}' and cached it.", DriverBinaryCache.class, browser, manager.getDownloadedDriverVersion(), driverPath);
+                }else{
+                    LogUtil.info("Resolved {} driver {} to '{}' without caching it, the installed browser couldn't be fingerprinted.", DriverBinaryCache.class, browser, manager.getDownloadedDriverVersion(), driverPath);
+                }
+            }catch (RuntimeException e){
+                if(cachedDriver == null || !Files.isExecutable(Paths.get(cachedDriver))) throw e;
+                driverPath = Paths.get(cachedDriver);
+                LogUtil.warn("Couldn't resolve {} driver ({}). Falling back to the cached '{}', which may not match the installed browser.", DriverBinaryCache.class, browser, e.getMessage(), driverPath);
+            }
+        }
+
+        System.setProperty(driverProperty, driverPath.toString());
+        resolvedDrivers.put(browser, driverPath);
+    }
+
+    private static WebDriverManager getManager(String browser){
+        return switch (browser){
+            case "chrome" -> WebDriverManager.chromedriver();
+            case "edge" -> WebDriverManager.edgedriver();
+            case "firefox" -> WebDriverManager.firefoxdriver();
+            default -> throw new UnsupportedOperationException("'" + browser + "' is not a supported browser. Supported browsers (chrome, edge and firefox).");
+        };
+    }
+
+    private static String getDriverProperty(String browser){
+        return switch (browser){
+            case "chrome" -> "webdriver.chrome.driver";
+            case "edge" -> "webdriver.edge.driver";
+            case "firefox" -> "webdriver.gecko.driver";
+            default -> throw new UnsupportedOperationException("'" + browser + "' is not a supported browser. Supported browsers (chrome, edge and firefox).");
+        };
+    }
+
+    // Returns null when the browser binary can't be found or read.
+    private static String getBrowserFingerprint(WebDriverManager manager){
+        try{
+            Optional<Path> browserPath = manager.getBrowserPath();
+            if(browserPath.isEmpty()) return null;
+            // Browser upgrades replace the binary and its install directory, so their timestamps change with the version.
+            Path binary = browserPath.get().toRealPath();
+            Path installDirectory = binary.getParent();
+            return binary + "|" + Files.size(binary) + "|" + Files.getLastModifiedTime(binary).toMillis()
+                    + "|" + (installDirectory == null ? 0 : Files.getLastModifiedTime(installDirectory).toMillis());
+        }catch (IOException | RuntimeException e){
+            LogUtil.warn("Couldn't fingerprint the installed browser: {}", DriverBinaryCache.class, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path getCacheFile(){
+        String cachePath = System.getProperty("driver-cache");
+        if(cachePath == null || cachePath.isBlank()){
+            return Paths.get(System.getProperty("user.home"), ".cache", "testauto", "driver-binaries.properties");
+        }
+        return Paths.get(cachePath);
+    }
+
+    private static Properties load(Path cacheFile) throws IOException {
+        Properties cache = new Properties();
+        if(Files.exists(cacheFile)){
+            try(Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)){
+                cache.load(reader);
+            }
+        }
+        return cache;
+    }
+
+    private static void store(Properties cache, Path cacheFile) throws IOException {
+        Path directory = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, "driver-binaries", ".tmp");
+        try(Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)){
+            cache.store(writer, "Driver binaries resolved by WebDriverManager");
+        }
+        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
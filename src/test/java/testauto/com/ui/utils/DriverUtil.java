@@ -3,11 +3,14 @@ package testauto.com.ui.utils;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.Dimension;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.chromium.HasCdp;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
@@ -17,17 +20,61 @@ import testauto.com.common.LogUtil;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static testauto.com.common.FilesUtil.getPropertyValue;
 
 public class DriverUtil {
 
-    private static WebDriver webDriver;
-    private static AppiumDriver mobileDriver;
+    private static final Map<Thread, WebSessionPool.WebSession> webSessions = new ConcurrentHashMap<>();
+    private static final Map<Thread, AppiumDriver> mobileDrivers = new ConcurrentHashMap<>();
+    private static final Map<Thread, DevicePool.Device> deviceLeases = new ConcurrentHashMap<>();
 
     private static final String ARG_DELIMITER = "\\|";
+    private static final int DEFAULT_POOL_ACQUIRE_TIMEOUT = 300;
+    private static final int MAX_POOL_SIZE = getMaxPoolSize();
+    private static final Semaphore sessionPermits = new Semaphore(MAX_POOL_SIZE, true);
+    private static final WebSessionPool warmSessions = new WebSessionPool(MAX_POOL_SIZE, sessionPermits);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverUtil::quitAllDrivers, "driver-pool-shutdown"));
+    }
+
+    private static int getMaxPoolSize(){
+        String poolSize = System.getProperty("driver-pool-size");
+        if(poolSize == null || poolSize.isBlank()){
+            return Runtime.getRuntime().availableProcessors();
+        }
+        int size = Integer.parseInt(poolSize.strip());
+        if(size < 1) throw new IllegalArgumentException("'driver-pool-size' must be at least 1 but was '" + poolSize + "'.");
+        return size;
+    }
+
+    private static int getPoolAcquireTimeout(){
+        String timeout = System.getProperty("driver-pool-timeout");
+        return timeout == null || timeout.isBlank() ? DEFAULT_POOL_ACQUIRE_TIMEOUT : Integer.parseInt(timeout.strip());
+    }
+
+    private static void acquireSessionPermit(){
+        int timeout = getPoolAcquireTimeout();
+        // Idle warm sessions hold permits too; give one of them up before waiting for a busy session.
+        if(sessionPermits.tryAcquire() || (warmSessions.evictIdle() && sessionPermits.tryAcquire())) return;
+        try{
+            if(!sessionPermits.tryAcquire(timeout, TimeUnit.SECONDS)){
+                throw new IllegalStateException("Timed out after " + timeout + " seconds waiting for a free driver session. All " + MAX_POOL_SIZE + " sessions of the pool are in use.");
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free driver session.", e);
+        }
+    }
 
     private static MutableCapabilities loadWebOptions(String propertiesPath) throws Exception {
         try{
@@ -48,7 +95,10 @@ public class DriverUtil {
             }else{
                 throw new UnsupportedOperationException("'" + browser + "' is not a supported browser. Supported browsers (chrome, edge and firefox).");
             }
-            LogUtil.info("Loading web options = '"  + Arrays.toString(arguments) +"'.", DriverUtil.class);
+            if(isLeanProfile(propertiesPath)){
+                applyLeanProfile(driverOptions, getLeanWindowSize(propertiesPath));
+            }
+            LogUtil.info("Loading web options = '{}'.", DriverUtil.class, Arrays.toString(arguments));
             return Objects.requireNonNull(driverOptions, "Driver options must not be null.");
         }catch (Exception e){
             LogUtil.logAndRethrow("Error while loading web options.", DriverUtil.class, e);
@@ -56,25 +106,100 @@ public class DriverUtil {
         }
     }
 
+    private static boolean isLeanProfile(String propertiesPath) throws IOException {
+        return getPropertyValue(propertiesPath, "profile", "default").strip().equalsIgnoreCase("lean");
+    }
+
+    private static Dimension getLeanWindowSize(String propertiesPath) throws IOException {
+        String windowSize = getPropertyValue(propertiesPath, "lean.windowSize", "1366x768");
+        String [] dimensions = windowSize.toLowerCase().split("x");
+        if(dimensions.length != 2) throw new IllegalArgumentException("'" + windowSize + "' is not a valid window size. Expected format is <width>x<height>, e.g. 1366x768.");
+        return new Dimension(Integer.parseInt(dimensions[0].strip()), Integer.parseInt(dimensions[1].strip()));
+    }
+
+    private static void applyLeanProfile(MutableCapabilities driverOptions, Dimension windowSize){
+        if(driverOptions instanceof ChromiumOptions<?> chromiumOptions){
+            chromiumOptions.addArguments("--headless=new", "--window-size=" + windowSize.getWidth() + "," + windowSize.getHeight(), "--blink-settings=imagesEnabled=false");
+            chromiumOptions.setExperimentalOption("prefs", Map.of("profile.managed_default_content_settings.images", 2));
+        }else if(driverOptions instanceof FirefoxOptions firefoxOptions){
+            firefoxOptions.addArguments("-headless", "--width=" + windowSize.getWidth(), "--height=" + windowSize.getHeight());
+            firefoxOptions.addPreference("permissions.default.image", 2);
+        }
+        LogUtil.info("Applied lean profile (headless, images disabled, window size {}).", DriverUtil.class, windowSize);
+    }
+
+    private static void blockUrls(WebDriver webDriver, String propertiesPath) throws IOException {
+        String blockedUrlsFromProperties = getPropertyValue(propertiesPath, "lean.blockedUrls", "");
+        if(blockedUrlsFromProperties.isBlank()) return;
+        List<String> blockedUrls = Arrays.stream(blockedUrlsFromProperties.split(ARG_DELIMITER)).map(String::strip).filter(url -> !url.isEmpty()).toList();
+        if(webDriver instanceof HasCdp cdp){
+            cdp.executeCdpCommand("Network.enable", Map.of());
+            cdp.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedUrls));
+            LogUtil.info("Blocking requests matching {}.", DriverUtil.class, blockedUrls);
+        }else{
+            LogUtil.warn("URL blocking needs the Chrome DevTools protocol and is skipped for this browser.", DriverUtil.class);
+        }
+    }
+
     public static void initializeWebDriver(String propertiesPath) throws Exception {
+        quitWebDriver();
+        WebSessionPool.WebSession session = null;
+        if(isSessionReuseEnabled(propertiesPath)){
+            // A leased session brings the permit it was parked with.
+            session = warmSessions.lease(propertiesPath, getMaxTestsPerSession(propertiesPath), getMaxSessionAge(propertiesPath));
+        }
+        if(session == null){
+            acquireSessionPermit();
+            try{
+                session = new WebSessionPool.WebSession(createWebDriver(propertiesPath), propertiesPath);
+            }catch (Exception e){
+                sessionPermits.release();
+                throw e;
+            }
+        }
+        webSessions.put(Thread.currentThread(), session);
+        LogUtil.info("Web driver session {} of {} active for thread '{}'.", DriverUtil.class, webSessions.size(), MAX_POOL_SIZE, Thread.currentThread().getName());
+    }
+
+    private static boolean isSessionReuseEnabled(String propertiesPath) throws IOException {
+        return Boolean.parseBoolean(getPropertyValue(propertiesPath, "session.reuse", "false"));
+    }
+
+    private static int getMaxTestsPerSession(String propertiesPath) throws IOException {
+        return Integer.parseInt(getPropertyValue(propertiesPath, "session.maxTests", "25").strip());
+    }
+
+    private static Duration getMaxSessionAge(String propertiesPath) throws IOException {
+        return Duration.ofMinutes(Long.parseLong(getPropertyValue(propertiesPath, "session.maxAgeMinutes", "30").strip()));
+    }
+
+    private static WebDriver createWebDriver(String propertiesPath) throws Exception {
+        WebDriver webDriver = null;
         MutableCapabilities driverOptions = loadWebOptions(propertiesPath);
         String switchesFromProperties = getPropertyValue(propertiesPath, "experimental.switches");
         String [] switches = switchesFromProperties == null ? new String[0] : switchesFromProperties.split(ARG_DELIMITER);
         if(driverOptions instanceof ChromeOptions){
             ((ChromeOptions) driverOptions).setExperimentalOption("excludeSwitches", Arrays.asList(switches));
-            WebDriverManager.chromedriver().setup();
+            DriverBinaryCache.setup("chrome");
             webDriver = new ChromeDriver((ChromeOptions) driverOptions);
         }else if(driverOptions instanceof EdgeOptions){
             ((EdgeOptions) driverOptions).setExperimentalOption("excludeSwitches", Arrays.asList(switches));
-            WebDriverManager.edgedriver().setup();
+            DriverBinaryCache.setup("edge");
             webDriver = new EdgeDriver((EdgeOptions) driverOptions);
         }else if(driverOptions instanceof FirefoxOptions){
-            WebDriverManager.firefoxdriver().setup();
+            DriverBinaryCache.setup("firefox");
             webDriver = new FirefoxDriver((FirefoxOptions) driverOptions);
         }
         Objects.requireNonNull(webDriver, "webDriver cannot be null.");
-        LogUtil.info("Driver set to '" + driverOptions.getBrowserName() + "'.", DriverUtil.class);
-        webDriver.manage().window().maximize();
+        LogUtil.info("Driver set to '{}'.", DriverUtil.class, driverOptions.getBrowserName());
+        PageReadyWait.register(webDriver);
+        if(isLeanProfile(propertiesPath)){
+            webDriver.manage().window().setSize(getLeanWindowSize(propertiesPath));
+            blockUrls(webDriver, propertiesPath);
+        }else{
+            webDriver.manage().window().maximize();
+        }
+        return CommandMetrics.instrument(webDriver);
     }
 
     private static DesiredCapabilities getMobileCapabilities(String propertiesPath,String platformName, boolean isBrowser) throws IOException {
@@ -98,45 +223,124 @@ public class DriverUtil {
         String platformName = getPropertyValue(propertiesPath, "platform");
         if(platformName == null || platformName.isBlank()) throw new RuntimeException("Platform cannot be null or empty.");
         URL url = new URL(Objects.requireNonNull(getPropertyValue(propertiesPath, "appiumServer")));
+        DevicePool devicePool = DevicePool.of(propertiesPath);
 
-        switch (platformName.toLowerCase()){
-            case "android":
-                mobileDriver = new AndroidDriver(url, getMobileCapabilities(propertiesPath, platformName, isBrowser));
-                break;
-            case "ios":
-                mobileDriver = new IOSDriver(url, getMobileCapabilities(propertiesPath, platformName, isBrowser));
-                break;
-            default:
-                throw new UnsupportedOperationException("'" + platformName + "' is not a supported platform. Supported platforms include: ios and android.");
+        quitMobileDriver();
+        acquireSessionPermit();
+        try{
+            DesiredCapabilities capabilities = getMobileCapabilities(propertiesPath, platformName, isBrowser);
+            AppiumDriver mobileDriver = devicePool == null
+                    ? createMobileDriver(platformName, url, capabilities)
+                    : createMobileDriverOnPooledDevice(devicePool, platformName, capabilities);
+            mobileDrivers.put(Thread.currentThread(), mobileDriver);
+        }catch (IOException | RuntimeException e){
+            sessionPermits.release();
+            throw e;
         }
     }
 
+    private static AppiumDriver createMobileDriver(String platformName, URL url, DesiredCapabilities capabilities){
+        return switch (platformName.toLowerCase()){
+            case "android" -> new AndroidDriver(url, capabilities);
+            case "ios" -> new IOSDriver(url, capabilities);
+            default -> throw new UnsupportedOperationException("'" + platformName + "' is not a supported platform. Supported platforms include: ios and android.");
+        };
+    }
+
+    private static AppiumDriver createMobileDriverOnPooledDevice(DevicePool devicePool, String platformName, DesiredCapabilities capabilities){
+        WebDriverException lastFailure = null;
+        for(int attempt = 0; attempt < devicePool.size(); attempt++){
+            DevicePool.Device device = devicePool.lease();
+            DesiredCapabilities deviceCapabilities = new DesiredCapabilities(capabilities);
+            device.getCapabilities().forEach(deviceCapabilities::setCapability);
+            try{
+                AppiumDriver mobileDriver = createMobileDriver(platformName, device.getAppiumServer(), deviceCapabilities);
+                deviceLeases.put(Thread.currentThread(), device);
+                LogUtil.info("Appium session started on device '{}'.", DriverUtil.class, device.getName());
+                return mobileDriver;
+            }catch (WebDriverException e){
+                device.release(true);
+                lastFailure = e;
+                LogUtil.warn("Couldn't start an Appium session on device '{}': {}", DriverUtil.class, device.getName(), e.getMessage());
+            }catch (RuntimeException e){
+                device.release(false);
+                throw e;
+            }
+        }
+        throw new IllegalStateException("Couldn't start an Appium session on any of the " + devicePool.size() + " pooled devices.", lastFailure);
+    }
+
     @SuppressWarnings("unchecked")
     public static <T extends WebDriver> T getDriver(Class<T> targetDriver){
         String errorMessage = "Couldn't get '" + targetDriver.getSimpleName() + "' because %s == null. Call %s(String propertiesPath) first.";
         if(IOSDriver.class.isAssignableFrom(targetDriver) || AndroidDriver.class.isAssignableFrom(targetDriver)){
+            AppiumDriver mobileDriver = mobileDrivers.get(Thread.currentThread());
             Objects.requireNonNull(mobileDriver, String.format(errorMessage, "mobileDriver", "initializeMobileDriver"));
             return (T) mobileDriver;
         }else if(WebDriver.class == targetDriver){
-            Objects.requireNonNull(webDriver, String.format(errorMessage, "webDriver", "initializeWebDriver"));
-            return (T) webDriver;
+            WebSessionPool.WebSession webSession = webSessions.get(Thread.currentThread());
+            Objects.requireNonNull(webSession, String.format(errorMessage, "webDriver", "initializeWebDriver"));
+            return (T) webSession.getDriver();
         }else{
             throw new IllegalArgumentException(targetDriver + " is not a supported option. Supported options include: ios, android and web.");
         }
     }
 
-    public static void quitDriver(){
-        if(webDriver != null) {
-            webDriver.quit();
-            webDriver = null;
-            LogUtil.info("Web Driver is quit and set to null.", DriverUtil.class);
+    private static void quitWebDriver(){
+        WebSessionPool.WebSession webSession = webSessions.remove(Thread.currentThread());
+        if(webSession == null) return;
+        try{
+            if(isSessionReuseEnabled(webSession.getKey())){
+                warmSessions.release(webSession, getMaxTestsPerSession(webSession.getKey()), getMaxSessionAge(webSession.getKey()));
+                LogUtil.info("Web Driver is returned to the warm session pool.", DriverUtil.class);
+                return;
+            }
+        }catch (IOException e){
+            LogUtil.error("Couldn't read session reuse settings. Quitting the session instead.", DriverUtil.class, e);
         }
+        quitSession(webSession.getDriver());
+        LogUtil.info("Web Driver is quit and set to null.", DriverUtil.class);
+    }
 
+    private static void quitMobileDriver(){
+        AppiumDriver mobileDriver = mobileDrivers.remove(Thread.currentThread());
         if(mobileDriver != null){
-            mobileDriver.quit();
-            mobileDriver = null;
+            boolean isQuit = quitSession(mobileDriver);
+            DevicePool.Device device = deviceLeases.remove(Thread.currentThread());
+            if(device != null) device.release(!isQuit);
             LogUtil.info("Appium Driver is quit and set to null.", DriverUtil.class);
         }
     }
 
+    private static boolean quitSession(WebDriver driver){
+        try{
+            driver.quit();
+            return true;
+        }catch (Exception e){
+            LogUtil.error("Error while quitting driver session.", DriverUtil.class, e);
+            return false;
+        }finally {
+            sessionPermits.release();
+        }
+    }
+
+    public static void quitDriver(){
+        quitWebDriver();
+        quitMobileDriver();
+    }
+
+    public static void quitAllDrivers(){
+        for(Thread thread: webSessions.keySet()){
+            WebSessionPool.WebSession webSession = webSessions.remove(thread);
+            if(webSession != null) quitSession(webSession.getDriver());
+        }
+        warmSessions.quitAll();
+        for(Thread thread: mobileDrivers.keySet()){
+            AppiumDriver mobileDriver = mobileDrivers.remove(thread);
+            if(mobileDriver != null) quitSession(mobileDriver);
+            DevicePool.Device device = deviceLeases.remove(thread);
+            if(device != null) device.release(false);
+        }
+    }
+
 }
@@ -0,0 +1,420 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.By;
+import testauto.com.common.LogUtil;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+public class LocatorRepository {
+
+    private static final String DEFAULT_PAGE = "";
+    private static final String ELEMENT = "element";
+    private static final String LOCATOR = "locator";
+    private static final XMLInputFactory xmlInputFactory = createXMLInputFactory();
+
+    private static final Map<Path, PageFile> pageFiles = new ConcurrentHashMap<>();
+    private static final Map<List<Path>, LocatorRepository> repositories = new ConcurrentHashMap<>();
+    private static final Map<String, ResolvedLocation> resolvedLocations = new ConcurrentHashMap<>();
+
+    private final List<PageFile> files;
+    private final Map<String, By> unqualifiedLocators = new ConcurrentHashMap<>();
+
+    private static final class Page {
+        private final Map<String, By> locators;
+        private final Map<String, RuntimeException> invalidLocators;
+
+        private Page(Map<String, By> locators, Map<String, RuntimeException> invalidLocators){
+            this.locators = Collections.unmodifiableMap(locators);
+            this.invalidLocators = Collections.unmodifiableMap(invalidLocators);
+        }
+
+        private By find(String elementKey){
+            By by = locators.get(elementKey);
+            if(by != null) return by;
+            RuntimeException invalidLocator = invalidLocators.get(elementKey);
+            if(invalidLocator != null) throw invalidLocator;
+            return null;
+        }
+    }
+
+    // The files of a location are listed again only when one of its directories changes, i.e. when a file below it
+    // is added, removed or renamed.
+    private record ResolvedLocation(List<Path> paths, Map<Path, FileTime> directories) {
+        private boolean isCurrent(){
+            try{
+                for(Map.Entry<Path, FileTime> directory: directories.entrySet()){
+                    if(!directory.getValue().equals(Files.getLastModifiedTime(directory.getKey()))) return false;
+                }
+                return true;
+            }catch (IOException e){
+                return false;
+            }
+        }
+    }
+
+    private static final class PageFile {
+        private final Path path;
+        private final List<String> pageKeys;
+        private final Map<String, Set<String>> elementKeysByPage;
+        private final Map<String, Page> loadedPages = new ConcurrentHashMap<>();
+
+        private PageFile(Path path, Map<String, Set<String>> elementKeysByPage){
+            this.path = path;
+            this.pageKeys = List.copyOf(elementKeysByPage.keySet());
+            this.elementKeysByPage = elementKeysByPage;
+        }
+
+        private boolean hasPage(String pageKey){
+            return elementKeysByPage.containsKey(pageKey);
+        }
+
+        private boolean hasElement(String pageKey, String elementKey){
+            Set<String> elementKeys = elementKeysByPage.get(pageKey);
+            return elementKeys != null && elementKeys.contains(elementKey);
+        }
+
+        private Page getPage(String pageKey) throws IOException {
+            Page page = loadedPages.get(pageKey);
+            if(page != null) return page;
+            try{
+                return loadedPages.computeIfAbsent(pageKey, key -> {
+                    try{
+                        return loadPage(path, key);
+                    }catch (IOException e){
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }catch (UncheckedIOException e){
+                throw e.getCause();
+            }
+        }
+    }
+
+    private LocatorRepository(List<PageFile> files){
+        this.files = files;
+    }
+
+    public static LocatorRepository of(String location) throws IOException {
+        if(location == null || location.isBlank()) throw new IllegalArgumentException("'location' cannot be null or empty / blank.");
+        List<Path> paths = resolvePaths(location);
+        LocatorRepository repository = repositories.get(paths);
+        if(repository != null) return repository;
+        try{
+            repository = repositories.computeIfAbsent(paths, key -> {
+                List<PageFile> files = new ArrayList<>();
+                for(Path path: key){
+                    files.add(getPageFile(path));
+                }
+                return new LocatorRepository(Collections.unmodifiableList(files));
+            });
+        }catch (UncheckedIOException e){
+            LogUtil.logAndRethrow("Error while indexing page repository '" + location + "'.", LocatorRepository.class, e.getCause());
+        }
+        return repository;
+    }
+
+    public By getBy(String elementName) throws IOException {
+        if(elementName == null || elementName.isBlank()) throw new IllegalArgumentException("element name cannot be blank or empty / blank.");
+        int separator = elementName.indexOf('.');
+        if(separator > 0){
+            String pageKey = key(elementName.substring(0, separator));
+            if(hasPage(pageKey)){
+                By by = find(pageKey, key(elementName.substring(separator + 1)));
+                if(by != null) return by;
+                throw new NullPointerException("Target element '" + elementName + "' not found in the page repository (XML).");
+            }
+        }
+
+        String elementKey = key(elementName);
+        By by = unqualifiedLocators.get(elementKey);
+        if(by != null) return by;
+        by = findUnqualified(elementKey);
+        if(by == null) throw new NullPointerException("Target element '" + elementName + "' not found in the page repository (XML).");
+        unqualifiedLocators.put(elementKey, by);
+        return by;
+    }
+
+    private boolean hasPage(String pageKey){
+        for(PageFile file: files){
+            if(file.hasPage(pageKey)) return true;
+        }
+        return false;
+    }
+
+    // Later files and later page sections win, matching the last-definition-wins rule of a single file.
+    private By find(String pageKey, String elementKey) throws IOException {
+        for(int i = files.size() - 1; i >= 0; i--){
+            PageFile file = files.get(i);
+            if(!file.hasPage(pageKey)) continue;
+            By by = file.getPage(pageKey).find(elementKey);
+            if(by != null) return by;
+        }
+        return null;
+    }
+
+    // Only pages that declare the element are loaded.
+    private By findUnqualified(String elementKey) throws IOException {
+        for(int i = files.size() - 1; i >= 0; i--){
+            PageFile file = files.get(i);
+            for(int j = file.pageKeys.size() - 1; j >= 0; j--){
+                String pageKey = file.pageKeys.get(j);
+                if(!file.hasElement(pageKey, elementKey)) continue;
+                By by = file.getPage(pageKey).find(elementKey);
+                if(by != null) return by;
+            }
+        }
+        return null;
+    }
+
+    private static List<Path> resolvePaths(String location) throws IOException {
+        ResolvedLocation resolved = resolvedLocations.get(location);
+        if(resolved != null && resolved.isCurrent()) return resolved.paths();
+
+        List<Path> paths = new ArrayList<>();
+        Map<Path, FileTime> directories = new HashMap<>();
+        for(String entry: location.split(",")){
+            if(entry.isBlank()) continue;
+            Path path = Paths.get(entry.strip()).toAbsolutePath().normalize();
+            if(Files.isDirectory(path)){
+                List<Path> xmlFiles = new ArrayList<>();
+                try(Stream<Path> files = Files.walk(path)){
+                    for(Path file: (Iterable<Path>) files::iterator){
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        if(attributes.isDirectory()){
+                            directories.put(file, attributes.lastModifiedTime());
+                        }else if(attributes.isRegularFile() && file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xml")){
+                            xmlFiles.add(file);
+                        }
+                    }
+                }
+                xmlFiles.sort(null);
+                paths.addAll(xmlFiles);
+            }else{
+                paths.add(path);
+            }
+        }
+        paths = Collections.unmodifiableList(paths);
+        resolvedLocations.put(location, new ResolvedLocation(paths, directories));
+        return paths;
+    }
+
+    private static PageFile getPageFile(Path path){
+        return pageFiles.computeIfAbsent(path, key -> {
+            try{
+                return new PageFile(key, indexPages(key));
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Records which page sections a file declares and the element names of each, without building any locators.
+    private static Map<String, Set<String>> indexPages(Path path) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Set<String>> elementKeysByPage = new LinkedHashMap<>();
+        try(InputStream inputStream = Files.newInputStream(path)){
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            try{
+                int depth = 0;
+                int pageDepth = -1;
+                Set<String> elementKeys = null;
+                while(reader.hasNext()){
+                    int event = reader.next();
+                    if(event == XMLStreamConstants.START_ELEMENT){
+                        depth++;
+                        boolean isElement = ELEMENT.equals(reader.getLocalName());
+                        if(depth == 2){
+                            elementKeys = elementKeysByPage.computeIfAbsent(isElement ? DEFAULT_PAGE : key(reader.getLocalName()), key -> new HashSet<>());
+                            if(isElement){
+                                indexElement(reader, elementKeys);
+                                depth--;
+                            }else{
+                                pageDepth = depth;
+                            }
+                        }else if(pageDepth > 0 && isElement){
+                            indexElement(reader, elementKeys);
+                            depth--;
+                        }
+                    }else if(event == XMLStreamConstants.END_ELEMENT){
+                        if(depth == pageDepth) pageDepth = -1;
+                        depth--;
+                    }
+                }
+            }finally {
+                reader.close();
+            }
+        }catch (XMLStreamException e){
+            throw new IOException("Error while parsing XML document '" + path + "'.", e);
+        }
+        LogUtil.debug("Indexed {} pages of '{}' in {} ms.", LocatorRepository.class, elementKeysByPage.size(), path, (System.nanoTime() - start) / 1_000_000);
+        return Collections.unmodifiableMap(elementKeysByPage);
+    }
+
+    private static void indexElement(XMLStreamReader reader, Set<String> elementKeys) throws XMLStreamException {
+        String name = reader.getAttributeValue(null, "name");
+        elementKeys.add(key(name == null ? "" : name));
+        skipElement(reader);
+    }
+
+    private static Page loadPage(Path path, String pageKey) throws IOException {
+        Map<String, By> locators = new HashMap<>();
+        Map<String, RuntimeException> invalidLocators = new HashMap<>();
+        List<String> duplicates = new ArrayList<>();
+        try(InputStream inputStream = Files.newInputStream(path)){
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            try{
+                int depth = 0;
+                int pageDepth = -1;
+                while(reader.hasNext()){
+                    int event = reader.next();
+                    if(event == XMLStreamConstants.START_ELEMENT){
+                        depth++;
+                        boolean isElement = ELEMENT.equals(reader.getLocalName());
+                        if(depth == 2){
+                            String key = isElement ? DEFAULT_PAGE : key(reader.getLocalName());
+                            if(!key.equals(pageKey)){
+                                skipElement(reader);
+                                depth--;
+                            }else if(isElement){
+                                readElement(reader, path, pageKey, locators, invalidLocators, duplicates);
+                                depth--;
+                            }else{
+                                pageDepth = depth;
+                            }
+                        }else if(pageDepth > 0 && isElement){
+                            readElement(reader, path, pageKey, locators, invalidLocators, duplicates);
+                            depth--;
+                        }
+                    }else if(event == XMLStreamConstants.END_ELEMENT){
+                        if(depth == pageDepth) pageDepth = -1;
+                        depth--;
+                    }
+                }
+            }finally {
+                reader.close();
+            }
+        }catch (XMLStreamException e){
+            throw new IOException("Error while parsing XML document '" + path + "'.", e);
+        }
+
+        String pageName = pageKey.isEmpty() ? "(root)" : pageKey;
+        if(!duplicates.isEmpty()){
+            LogUtil.warn("Duplicate element names in page '{}' of '{}' resolve to their last definition: {}.", LocatorRepository.class, pageName, path, duplicates);
+        }
+        LogUtil.info("Loaded {} locators of page '{}' from '{}'.", LocatorRepository.class, locators.size(), pageName, path);
+        return new Page(locators, invalidLocators);
+    }
+
+    // An element holds either a single locator (<element name='x' by='id'>value</element>) or ordered
+    // <locator by='...'>value</locator> candidates, which are resolved through a RankedBy.
+    private static void readElement(XMLStreamReader reader, Path path, String pageKey, Map<String, By> locators,
+                                    Map<String, RuntimeException> invalidLocators, List<String> duplicates) throws XMLStreamException {
+        String name = reader.getAttributeValue(null, "name");
+        if(name == null) name = "";
+        String locatorStrategy = reader.getAttributeValue(null, "by");
+        List<String[]> candidates = new ArrayList<>();
+        if(locatorStrategy != null){
+            candidates.add(new String[]{locatorStrategy, reader.getElementText()});
+        }else{
+            while(reader.next() != XMLStreamConstants.END_ELEMENT){
+                if(reader.getEventType() != XMLStreamConstants.START_ELEMENT) continue;
+                if(LOCATOR.equals(reader.getLocalName())){
+                    candidates.add(new String[]{reader.getAttributeValue(null, "by"), reader.getElementText()});
+                }else{
+                    skipElement(reader);
+                }
+            }
+        }
+
+        String key = key(name);
+        boolean duplicate = locators.remove(key) != null;
+        duplicate |= invalidLocators.remove(key) != null;
+        if(duplicate) duplicates.add(name);
+        try{
+            String elementId = pageKey.isEmpty() ? key : pageKey + "." + key;
+            By by = toBy(elementId, name, candidates, path);
+            locators.put(key, by);
+            CommandMetrics.registerElement(by, elementId);
+        }catch (RuntimeException e){
+            invalidLocators.put(key, e);
+            LogUtil.error("Invalid locator for element '" + name + "' in '" + path + "': " + e.getMessage(), LocatorRepository.class);
+        }
+    }
+
+    private static By toBy(String elementId, String name, List<String[]> candidates, Path path){
+        if(candidates.isEmpty()) return toBy(name, null, null);
+        if(candidates.size() == 1) return toBy(name, candidates.get(0)[0], candidates.get(0)[1]);
+        List<By> candidateBys = new ArrayList<>();
+        RuntimeException firstError = null;
+        for(String[] candidate: candidates){
+            try{
+                candidateBys.add(toBy(name, candidate[0], candidate[1]));
+            }catch (RuntimeException e){
+                if(firstError == null) firstError = e;
+                LogUtil.error("Ignoring invalid locator candidate of element '" + name + "' in '" + path + "': " + e.getMessage(), LocatorRepository.class);
+            }
+        }
+        if(candidateBys.isEmpty()) throw firstError;
+        return candidateBys.size() == 1 ? candidateBys.get(0) : new RankedBy(elementId, candidateBys);
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while(depth > 0){
+            int event = reader.next();
+            if(event == XMLStreamConstants.START_ELEMENT) depth++;
+            else if(event == XMLStreamConstants.END_ELEMENT) depth--;
+        }
+    }
+
+    private static String key(String name){
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static XMLInputFactory createXMLInputFactory(){
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    static By toBy(String element, String locatorStrategy, String locator){
+        if (locatorStrategy == null || locatorStrategy.isBlank()) {
+            throw new IllegalArgumentException("Locator strategy ('by') is missing for element: " + element);
+        }
+        return switch (locatorStrategy.toLowerCase()){
+            case "xpath" -> By.xpath(locator);
+            case "id" -> By.id(locator);
+            case "classname" -> By.className(locator);
+            case "css" -> By.cssSelector(locator);
+            case "name" -> By.name(locator);
+            case "linktext" -> By.linkText(locator);
+            case "partiallinktext" -> By.partialLinkText(locator);
+            case "tagname" -> By.tagName(locator);
+            default -> throw new UnsupportedOperationException("'" + locatorStrategy + "' is not a valid or supported locator strategy.");
+        };
+    }
+}
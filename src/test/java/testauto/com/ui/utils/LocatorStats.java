@@ -0,0 +1,135 @@
+package testauto.com.ui.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openqa.selenium.By;
+import testauto.com.common.LogUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+class LocatorStats {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final long MAX_ATTEMPTS = 1000;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Map<String, Map<String, CandidateStats>> stats = load();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(LocatorStats::store, "locator-stats"));
+    }
+
+    record Sample(long attempts, long successes, double meanMillis) {
+    }
+
+    private static final class CandidateStats {
+        private long attempts;
+        private long successes;
+        private double meanMillis;
+
+        private CandidateStats(Sample sample){
+            attempts = sample.attempts();
+            successes = sample.successes();
+            meanMillis = sample.meanMillis();
+        }
+
+        private synchronized void record(boolean success, long elapsedNanos){
+            double elapsedMillis = elapsedNanos / 1_000_000.0;
+            meanMillis = attempts == 0 ? elapsedMillis : meanMillis + LATENCY_WEIGHT * (elapsedMillis - meanMillis);
+            attempts++;
+            if(success) successes++;
+            // Halve the counts once they grow large so a locator that starts failing loses its rank quickly.
+            if(attempts > MAX_ATTEMPTS){
+                attempts /= 2;
+                successes /= 2;
+            }
+        }
+
+        private synchronized Sample sample(){
+            return new Sample(attempts, successes, meanMillis);
+        }
+
+        // Expected cost of trying this candidate: its mean latency divided by its (smoothed) success rate.
+        private synchronized double cost(){
+            return meanMillis * (attempts + 2) / (successes + 1);
+        }
+
+        private synchronized boolean isMeasured(){
+            return attempts > 0;
+        }
+    }
+
+    static void record(String element, By candidate, boolean success, long elapsedNanos){
+        getStats(element, candidate).record(success, elapsedNanos);
+    }
+
+    // Unmeasured candidates keep their declared order and go first so that each one gets measured once;
+    // measured candidates follow, cheapest expected cost first.
+    static List<By> rank(String element, List<By> candidates){
+        List<By> unmeasured = new ArrayList<>();
+        List<By> measured = new ArrayList<>();
+        for(By candidate: candidates){
+            (getStats(element, candidate).isMeasured() ? measured : unmeasured).add(candidate);
+        }
+        measured.sort(Comparator.comparingDouble(candidate -> getStats(element, candidate).cost()));
+        unmeasured.addAll(measured);
+        return unmeasured;
+    }
+
+    private static CandidateStats getStats(String element, By candidate){
+        return stats.computeIfAbsent(element, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(candidate.toString(), key -> new CandidateStats(new Sample(0, 0, 0)));
+    }
+
+    private static Path getStatsFile(){
+        String statsPath = System.getProperty("locator-stats");
+        return Paths.get(statsPath == null || statsPath.isBlank() ? "target/locator-stats.json" : statsPath).toAbsolutePath();
+    }
+
+    private static Map<String, Map<String, CandidateStats>> load(){
+        Map<String, Map<String, CandidateStats>> loaded = new ConcurrentHashMap<>();
+        Path statsFile = getStatsFile();
+        if(!Files.exists(statsFile)) return loaded;
+        try{
+            Map<String, Map<String, Sample>> samples = objectMapper.readValue(statsFile.toFile(), new TypeReference<>() {});
+            samples.forEach((element, candidates) -> {
+                Map<String, CandidateStats> candidateStats = new ConcurrentHashMap<>();
+                candidates.forEach((candidate, sample) -> candidateStats.put(candidate, new CandidateStats(sample)));
+                loaded.put(element, candidateStats);
+            });
+            LogUtil.debug("Loaded locator statistics for {} elements from '{}'.", LocatorStats.class, loaded.size(), statsFile);
+        }catch (IOException e){
+            LogUtil.warn("Ignoring unreadable locator statistics '{}': {}", LocatorStats.class, statsFile, e.getMessage());
+        }
+        return loaded;
+    }
+
+    static void store(){
+        if(stats.isEmpty()) return;
+        Map<String, Map<String, Sample>> samples = new TreeMap<>();
+        stats.forEach((element, candidates) -> {
+            Map<String, Sample> candidateSamples = new TreeMap<>();
+            candidates.forEach((candidate, candidateStats) -> candidateSamples.put(candidate, candidateStats.sample()));
+            samples.put(element, candidateSamples);
+        });
+        Path statsFile = getStatsFile();
+        try{
+            Files.createDirectories(statsFile.getParent());
+            Path tempFile = Files.createTempFile(statsFile.getParent(), "locator-stats", ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), samples);
+            Files.move(tempFile, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException e){
+            LogUtil.warn("Couldn't store locator statistics to '{}': {}", LocatorStats.class, statsFile, e.getMessage());
+        }
+    }
+}
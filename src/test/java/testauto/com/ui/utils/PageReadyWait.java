@@ -0,0 +1,147 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import testauto.com.common.ConfigUtil;
+import testauto.com.common.LogUtil;
+
+import java.time.Duration;
+import java.util.Map;
+
+class PageReadyWait {
+
+    private static final int MAX_SCRIPT_FAILURES = 3;
+
+    // Counts in-flight fetch/XHR requests and pending animation frames in window.__testautoReady, with the time
+    // each count last changed. Registered before any page script on Chromium; elsewhere it is installed by the
+    // first wait on a page and only sees requests started after that.
+    static final String INSTRUMENTATION_SCRIPT = """
+            (function () {
+                if (window.__testautoReady) return;
+                var state = window.__testautoReady = {requests: 0, frames: 0, lastRequestChange: Date.now(), lastFrameChange: Date.now()};
+                function requestChange(delta) { state.requests += delta; state.lastRequestChange = Date.now(); }
+                function frameChange(delta) { state.frames += delta; state.lastFrameChange = Date.now(); }
+                if (window.fetch) {
+                    var fetch = window.fetch;
+                    window.fetch = function () {
+                        var settled = false;
+                        function done() { if (!settled) { settled = true; requestChange(-1); } }
+                        requestChange(1);
+                        try {
+                            return fetch.apply(this, arguments).then(function (response) { done(); return response; }, function (error) { done(); throw error; });
+                        } catch (error) { done(); throw error; }
+                    };
+                }
+                if (window.XMLHttpRequest) {
+                    var send = XMLHttpRequest.prototype.send;
+                    XMLHttpRequest.prototype.send = function () {
+                        var settled = false;
+                        function done() { if (!settled) { settled = true; requestChange(-1); } }
+                        requestChange(1);
+                        this.addEventListener('loadend', done);
+                        try { return send.apply(this, arguments); } catch (error) { done(); throw error; }
+                    };
+                }
+                if (window.requestAnimationFrame) {
+                    var requestFrame = window.requestAnimationFrame, cancelFrame = window.cancelAnimationFrame, pending = {};
+                    function settle(id) { if (pending[id]) { delete pending[id]; frameChange(-1); } }
+                    window.requestAnimationFrame = function (callback) {
+                        var id = requestFrame.call(window, function (time) { settle(id); return callback(time); });
+                        pending[id] = true;
+                        frameChange(1);
+                        return id;
+                    };
+                    window.cancelAnimationFrame = function (id) { settle(id); return cancelFrame.call(window, id); };
+                }
+            })();
+            """;
+
+    // Resolves once the document is complete, no requests (and, if tracked, no animation frames) are pending,
+    // and nothing changed for the quiet period; otherwise resolves with 'timedOut' set when the timeout expires.
+    private static final String READY_SCRIPT = INSTRUMENTATION_SCRIPT + """
+            var quietMillis = arguments[0], trackFrames = arguments[1], timeoutMillis = arguments[2];
+            var callback = arguments[arguments.length - 1];
+            var state = window.__testautoReady, start = Date.now();
+            function status() {
+                var lastChange = trackFrames ? Math.max(state.lastRequestChange, state.lastFrameChange) : state.lastRequestChange;
+                return {readyState: document.readyState, requests: state.requests, frames: state.frames, quietMillis: Date.now() - lastChange};
+            }
+            (function poll() {
+                var current = status();
+                if (current.readyState === 'complete' && current.requests === 0 && (!trackFrames || current.frames === 0) && current.quietMillis >= quietMillis) {
+                    return callback(current);
+                }
+                if (Date.now() - start >= timeoutMillis) {
+                    current.timedOut = true;
+                    return callback(current);
+                }
+                setTimeout(poll, 25);
+            })();
+            """;
+
+    private final WebDriver driver;
+
+    PageReadyWait(WebDriver driver){
+        this.driver = driver;
+    }
+
+    static void register(WebDriver driver){
+        if(!(driver instanceof HasCdp cdp)) return;
+        try{
+            cdp.executeCdpCommand("Page.enable", Map.of());
+            cdp.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", Map.of("source", INSTRUMENTATION_SCRIPT));
+            LogUtil.debug("Registered network and animation frame tracking for new documents.", PageReadyWait.class);
+        }catch (WebDriverException e){
+            LogUtil.warn("Couldn't register page readiness tracking, it will be installed on first use: {}", PageReadyWait.class, e.getMessage());
+        }
+    }
+
+    // A navigation while the script runs discards it, so the wait starts over on the new document until the
+    // timeout; repeated script failures without progress are rethrown.
+    @SuppressWarnings("unchecked")
+    Map<String, Object> until(Duration timeout){
+        if(!(driver instanceof JavascriptExecutor)) throw new UnsupportedOperationException("Waiting for page readiness needs a driver that can execute scripts.");
+        ConfigUtil.Snapshot config = PollingSchedule.getConfig();
+        long quietMillis = Long.parseLong(config == null ? "500" : config.get("ready.quietMillis", "500").strip());
+        boolean trackFrames = Boolean.parseBoolean(config == null ? "false" : config.get("ready.animationFrames", "false").strip());
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long start = System.nanoTime();
+        int attempts = 0;
+        int failures = 0;
+        while(true){
+            Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            attempts++;
+            try{
+                Map<String, Object> status = (Map<String, Object>) DomObserverWait.executeAsync(driver, remaining, READY_SCRIPT, quietMillis, trackFrames, remaining.toMillis());
+                boolean timedOut = Boolean.TRUE.equals(status.get("timedOut"));
+                WaitTimings.record("ready", System.nanoTime() - start, attempts, timedOut);
+                if(timedOut){
+                    throw new TimeoutException(String.format("Page not ready, %s: document %s, %s requests in flight, %s pending animation frames, quiet for %s ms.",
+                            getBlocker(status, trackFrames), status.get("readyState"), status.get("requests"), status.get("frames"), status.get("quietMillis")));
+                }
+                return status;
+            }catch (TimeoutException e){
+                throw e;
+            }catch (WebDriverException e){
+                if(++failures >= MAX_SCRIPT_FAILURES || System.nanoTime() >= deadline){
+                    WaitTimings.record("ready", System.nanoTime() - start, attempts, false);
+                    throw e;
+                }
+                LogUtil.debug("Restarting page readiness wait after {} (likely a navigation).", PageReadyWait.class, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private static String getBlocker(Map<String, Object> status, boolean trackFrames){
+        if(!"complete".equals(status.get("readyState"))) return "the document is still loading";
+        if(((Number) status.get("requests")).longValue() > 0) return "requests are still in flight";
+        if(trackFrames && ((Number) status.get("frames")).longValue() > 0){
+            return "animation frames are still pending (set ready.animationFrames=false for pages that animate continuously)";
+        }
+        return "the page kept changing";
+    }
+}
@@ -0,0 +1,110 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.support.ui.Sleeper;
+import testauto.com.common.ConfigUtil;
+import testauto.com.common.LogUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+class PollingSchedule {
+
+    private static final String DEFAULT_CONFIG = "src/test/resources/ui/waits.properties";
+    private static final Map<String, Boolean> configExists = new ConcurrentHashMap<>();
+    private static volatile CachedSchedules cachedSchedules = new CachedSchedules(null, new ConcurrentHashMap<>());
+
+    // Schedules are parsed once per condition and rebuilt when ConfigUtil hands out a new snapshot of the file.
+    private record CachedSchedules(ConfigUtil.Snapshot config, Map<String, PollingSchedule> schedules) {
+    }
+
+    private final long initialMillis;
+    private final double multiplier;
+    private final long maxMillis;
+    private final double jitter;
+
+    private PollingSchedule(long initialMillis, double multiplier, long maxMillis, double jitter){
+        if(initialMillis <= 0 || multiplier < 1 || maxMillis < initialMillis || jitter < 0 || jitter >= 1){
+            throw new IllegalArgumentException(String.format("Invalid polling schedule: initialMillis=%d, multiplier=%s, maxMillis=%d, jitter=%s.",
+                    initialMillis, multiplier, maxMillis, jitter));
+        }
+        this.initialMillis = initialMillis;
+        this.multiplier = multiplier;
+        this.maxMillis = maxMillis;
+        this.jitter = jitter;
+    }
+
+    // Settings are read from 'polling.<condition>.<setting>' and fall back to the global 'polling.<setting>'.
+    static PollingSchedule forCondition(String condition){
+        ConfigUtil.Snapshot config = getConfig();
+        CachedSchedules cached = cachedSchedules;
+        if(cached.config() != config){
+            cached = new CachedSchedules(config, new ConcurrentHashMap<>());
+            cachedSchedules = cached;
+        }
+        return cached.schedules().computeIfAbsent(condition, key -> parse(config, key));
+    }
+
+    private static PollingSchedule parse(ConfigUtil.Snapshot config, String condition){
+        return new PollingSchedule(
+                Long.parseLong(getSetting(config, condition, "initialMillis", "50")),
+                Double.parseDouble(getSetting(config, condition, "multiplier", "1.5")),
+                Long.parseLong(getSetting(config, condition, "maxMillis", "500")),
+                Double.parseDouble(getSetting(config, condition, "jitter", "0.1")));
+    }
+
+    static ConfigUtil.Snapshot getConfig(){
+        String configPath = System.getProperty("waits-config", DEFAULT_CONFIG);
+        // Whether the file exists is checked once per path; edits to an existing file arrive through its snapshot.
+        if(!configExists.computeIfAbsent(configPath, path -> Files.exists(Paths.get(path)))) return null;
+        try{
+            return ConfigUtil.getSnapshot(configPath);
+        }catch (IOException e){
+            LogUtil.error("Error while reading wait configuration '" + configPath + "'.", PollingSchedule.class);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String getSetting(ConfigUtil.Snapshot config, String condition, String setting, String defaultValue){
+        if(config == null) return defaultValue;
+        return config.get("polling." + condition + "." + setting, config.get("polling." + setting, defaultValue)).strip();
+    }
+
+    long getInterval(int attempt){
+        double interval = Math.min(initialMillis * Math.pow(multiplier, attempt), maxMillis);
+        if(jitter > 0){
+            interval *= 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        }
+        return Math.max(1, Math.round(interval));
+    }
+
+    PollingSleeper newSleeper(Duration timeout){
+        return new PollingSleeper(timeout);
+    }
+
+    // FluentWait passes its fixed polling interval to the sleeper; it is ignored in favour of the schedule,
+    // and the last sleep is cut short so that a wait never overshoots its timeout.
+    final class PollingSleeper implements Sleeper {
+        private final long deadline;
+        private int sleeps;
+
+        private PollingSleeper(Duration timeout){
+            deadline = System.nanoTime() + timeout.toNanos();
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            Thread.sleep(Math.max(0, Math.min(getInterval(sleeps++), remainingMillis)));
+        }
+
+        int getPolls(){
+            return sleeps + 1;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RankedBy extends By {
+
+    private final String element;
+    private final List<By> candidates;
+
+    RankedBy(String element, List<By> candidates){
+        this.element = element;
+        this.candidates = List.copyOf(candidates);
+    }
+
+    public String getElement(){
+        return element;
+    }
+
+    public List<By> getCandidates(){
+        return candidates;
+    }
+
+    // Misses are recorded only when another candidate finds the element in the same call, so polling
+    // for an element that has not rendered yet does not count against any locator.
+    @Override
+    public List<WebElement> findElements(SearchContext context){
+        List<By> misses = new ArrayList<>();
+        List<Long> missLatencies = new ArrayList<>();
+        InvalidSelectorException invalidSelector = null;
+        int invalidCandidates = 0;
+        for(By candidate: LocatorStats.rank(element, candidates)){
+            long start = System.nanoTime();
+            List<WebElement> found;
+            try{
+                found = candidate.findElements(context);
+            }catch (InvalidSelectorException e){
+                if(invalidSelector == null) invalidSelector = e;
+                invalidCandidates++;
+                found = Collections.emptyList();
+            }
+            long elapsed = System.nanoTime() - start;
+            if(!found.isEmpty()){
+                LocatorStats.record(element, candidate, true, elapsed);
+                for(int i = 0; i < misses.size(); i++){
+                    LocatorStats.record(element, misses.get(i), false, missLatencies.get(i));
+                }
+                return found;
+            }
+            misses.add(candidate);
+            missLatencies.add(elapsed);
+        }
+        if(invalidCandidates == candidates.size()) throw invalidSelector;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String toString(){
+        return "By.ranked(" + element + "): " + candidates;
+    }
+}
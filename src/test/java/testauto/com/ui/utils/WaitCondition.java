@@ -0,0 +1,5 @@
+package testauto.com.ui.utils;
+
+public enum WaitCondition {
+    PRESENT, VISIBLE, CLICKABLE, INVISIBLE
+}
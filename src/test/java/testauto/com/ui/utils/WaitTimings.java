@@ -0,0 +1,69 @@
+package testauto.com.ui.utils;
+
+import testauto.com.common.LogUtil;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class WaitTimings {
+
+    private static final Map<String, Timing> timings = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WaitTimings::logSummary, "wait-timings"));
+    }
+
+    static final class Timing {
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder polls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        long getWaits(){
+            return waits.sum();
+        }
+
+        long getTimeouts(){
+            return timeouts.sum();
+        }
+
+        double getMeanMillis(){
+            long count = waits.sum();
+            return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+        }
+
+        double getMaxMillis(){
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        double getMeanPolls(){
+            long count = waits.sum();
+            return count == 0 ? 0 : (double) polls.sum() / count;
+        }
+    }
+
+    static void record(String condition, long elapsedNanos, int polls, boolean timedOut){
+        Timing timing = timings.computeIfAbsent(condition, key -> new Timing());
+        timing.waits.increment();
+        timing.polls.add(polls);
+        timing.totalNanos.add(elapsedNanos);
+        timing.maxNanos.accumulate(elapsedNanos);
+        if(timedOut) timing.timeouts.increment();
+    }
+
+    static Map<String, Timing> getTimings(){
+        return new TreeMap<>(timings);
+    }
+
+    private static void logSummary(){
+        if(timings.isEmpty()) return;
+        StringBuilder summary = new StringBuilder("Wait timings (condition: waits, timeouts, mean ms, max ms, mean polls):");
+        getTimings().forEach((condition, timing) -> summary.append(String.format("%n  %-10s %6d %6d %9.1f %9.1f %6.1f",
+                condition, timing.getWaits(), timing.getTimeouts(), timing.getMeanMillis(), timing.getMaxMillis(), timing.getMeanPolls())));
+        LogUtil.info(summary.toString(), WaitTimings.class);
+    }
+}
@@ -2,16 +2,25 @@ package testauto.com.ui.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.FluentWait;
+import testauto.com.common.ConfigUtil;
 import testauto.com.common.LogUtil;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
 public class WaitsUtil {
     private final WebDriver driver;
     private static final int DEFAULT_TIMEOUT = 10;
+    private static final int MAX_SCRIPT_FAILURES = 3;
+    private int scriptFailures;
 
     public WaitsUtil(WebDriver driver) {
         if(driver == null){
@@ -20,18 +29,130 @@ public class WaitsUtil {
         this.driver = driver;
     }
 
-    private FluentWait<WebDriver> getWait(int timeout){
-        return new FluentWait<>(driver)
-                .withTimeout(Duration.ofSeconds(timeout))
-                .pollingEvery(Duration.ofMillis(1000))
+    private <V> V until(String condition, Duration timeout, ExpectedCondition<V> expectation){
+        PollingSchedule.PollingSleeper sleeper = PollingSchedule.forCondition(condition).newSleeper(timeout);
+        FluentWait<WebDriver> wait = new FluentWait<>(driver, Clock.systemDefaultZone(), sleeper)
+                .withTimeout(timeout)
                 .ignoring(NoSuchElementException.class);
+        long start = System.nanoTime();
+        boolean timedOut = false;
+        try{
+            return wait.until(expectation);
+        }catch (TimeoutException e){
+            timedOut = true;
+            throw e;
+        }finally {
+            WaitTimings.record(condition, System.nanoTime() - start, sleeper.getPolls(), timedOut);
+        }
+    }
+
+    // In observer mode the condition is resolved in the page by a MutationObserver in one async script call.
+    // If the script can't run, the wait continues by polling for the remaining time; after repeated failures
+    // this instance stops using page scripts.
+    @SuppressWarnings("unchecked")
+    private <V> V untilElement(String condition, By elementBy, WaitCondition observed, int timeout, ExpectedCondition<V> expectation){
+        Duration remaining = Duration.ofSeconds(timeout);
+        if(isObserverMode() && scriptFailures < MAX_SCRIPT_FAILURES && DomObserverWait.isSupported(driver, elementBy)){
+            long start = System.nanoTime();
+            try{
+                V value = (V) new DomObserverWait(driver).until(elementBy, observed, remaining);
+                scriptFailures = 0;
+                WaitTimings.record(condition, System.nanoTime() - start, 1, false);
+                return value;
+            }catch (TimeoutException e){
+                scriptFailures = 0;
+                WaitTimings.record(condition, System.nanoTime() - start, 1, true);
+                throw e;
+            }catch (WebDriverException e){
+                scriptFailures++;
+                LogUtil.warn("Observer wait for '{}' failed, falling back to polling: {}", WaitsUtil.class, condition, e.getMessage());
+                remaining = remaining.minusNanos(System.nanoTime() - start);
+                if(remaining.isNegative()) remaining = Duration.ZERO;
+            }
+        }
+        return until(condition, remaining, expectation);
+    }
+
+    // All elements are checked by one script per poll (or one observer call in observer mode). Without page scripts
+    // each poll evaluates the pending conditions through the driver; elements stay ready once they were.
+    private Map<String, WebElement> untilAll(Map<String, By> elements, Map<String, WaitCondition> conditions, int timeout, List<String> missing){
+        Duration remaining = Duration.ofSeconds(timeout);
+        if(scriptFailures < MAX_SCRIPT_FAILURES && DomObserverWait.isSupported(driver, elements)){
+            DomObserverWait domWait = new DomObserverWait(driver);
+            long start = System.nanoTime();
+            try{
+                if(isObserverMode()){
+                    Map<String, WebElement> ready = toReadyElements(domWait.untilAll(elements, conditions, remaining), elements, missing);
+                    scriptFailures = 0;
+                    WaitTimings.record("elements", System.nanoTime() - start, 1, ready == null);
+                    if(ready == null) throw new TimeoutException("Elements " + missing + " not ready within " + remaining.toMillis() + " ms.");
+                    return ready;
+                }
+                Map<String, WebElement> ready = until("elements", remaining, ignored -> toReadyElements(domWait.checkAll(elements, conditions), elements, missing));
+                scriptFailures = 0;
+                return ready;
+            }catch (TimeoutException e){
+                scriptFailures = 0;
+                throw e;
+            }catch (WebDriverException e){
+                scriptFailures++;
+                LogUtil.warn("Scripted wait for elements {} failed, falling back to polling: {}", WaitsUtil.class, elements.keySet(), e.getMessage());
+                remaining = remaining.minusNanos(System.nanoTime() - start);
+                if(remaining.isNegative()) remaining = Duration.ZERO;
+            }
+        }
+
+        Map<String, WebElement> ready = new LinkedHashMap<>();
+        return until("elements", remaining, ignored -> {
+            missing.clear();
+            elements.forEach((name, elementBy) -> {
+                if(ready.containsKey(name)) return;
+                Object value;
+                try{
+                    value = toExpectedCondition(conditions.get(name), elementBy).apply(driver);
+                }catch (NoSuchElementException | StaleElementReferenceException e){
+                    value = null;
+                }
+                if(value == null || Boolean.FALSE.equals(value)) missing.add(name);
+                else ready.put(name, value instanceof WebElement webElement ? webElement : null);
+            });
+            if(!missing.isEmpty()) return null;
+            Map<String, WebElement> ordered = new LinkedHashMap<>();
+            elements.keySet().forEach(name -> ordered.put(name, ready.get(name)));
+            return ordered;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, WebElement> toReadyElements(Map<String, Object> result, Map<String, By> elements, List<String> missing){
+        missing.clear();
+        missing.addAll((List<String>) result.get("missing"));
+        if(!missing.isEmpty()) return null;
+        Map<String, Object> readyValues = (Map<String, Object>) result.get("ready");
+        Map<String, WebElement> ready = new LinkedHashMap<>();
+        elements.keySet().forEach(name -> ready.put(name, readyValues.get(name) instanceof WebElement webElement ? webElement : null));
+        return ready;
+    }
+
+    private static ExpectedCondition<?> toExpectedCondition(WaitCondition condition, By elementBy){
+        return switch (condition){
+            case PRESENT -> ExpectedConditions.presenceOfElementLocated(elementBy);
+            case VISIBLE -> ExpectedConditions.visibilityOfElementLocated(elementBy);
+            case CLICKABLE -> ExpectedConditions.elementToBeClickable(elementBy);
+            case INVISIBLE -> ExpectedConditions.invisibilityOfElementLocated(elementBy);
+        };
+    }
+
+    private static boolean isObserverMode(){
+        ConfigUtil.Snapshot config = PollingSchedule.getConfig();
+        return config != null && "observer".equalsIgnoreCase(config.get("wait.mode", "polling").strip());
     }
 
-    public void waitForElementToBePresent(String element, By elementBy, boolean mustExist, int timeout) throws Exception {
+    public WebElement waitForElementToBePresent(String element, By elementBy, boolean mustExist, int timeout) throws Exception {
+        WebElement webElement = null;
         try {
-            FluentWait<WebDriver> wait = getWait(timeout);
-            wait.until(ExpectedConditions.presenceOfElementLocated(elementBy));
-            LogUtil.info("Element '" + element + "' is present on the DOM.", WaitsUtil.class);
+            webElement = untilElement("present", elementBy, WaitCondition.PRESENT, timeout, ExpectedConditions.presenceOfElementLocated(elementBy));
+            LogUtil.info("Element '{}' is present on the DOM.", WaitsUtil.class, element);
         } catch (TimeoutException e) {
             String errorMessage = "Timed out after " + timeout + " seconds while waiting for element '" + element + "' to be present on the DOM.";
             if(mustExist) {
@@ -40,17 +161,18 @@ public class WaitsUtil {
                 LogUtil.info(errorMessage, WaitsUtil.class);
             }
         }
+        return webElement;
     }
 
-    public void waitForElementToBePresent(String element, By elementBy, boolean mustExist) throws Exception {
-        waitForElementToBePresent(element, elementBy, mustExist, DEFAULT_TIMEOUT);
+    public WebElement waitForElementToBePresent(String element, By elementBy, boolean mustExist) throws Exception {
+        return waitForElementToBePresent(element, elementBy, mustExist, DEFAULT_TIMEOUT);
     }
 
-    public void waitForElementToBeDisplayed(String element, By elementBy, boolean mustExist, int timeout) throws Exception {
+    public WebElement waitForElementToBeDisplayed(String element, By elementBy, boolean mustExist, int timeout) throws Exception {
+        WebElement webElement = null;
         try {
-            FluentWait<WebDriver> wait = getWait(timeout);
-            wait.until(ExpectedConditions.visibilityOfElementLocated(elementBy));
-            LogUtil.info("Element '" + element + "' is displayed.", WaitsUtil.class);
+            webElement = untilElement("displayed", elementBy, WaitCondition.VISIBLE, timeout, ExpectedConditions.visibilityOfElementLocated(elementBy));
+            LogUtil.info("Element '{}' is displayed.", WaitsUtil.class, element);
         } catch (TimeoutException e) {
             String errorMessage = "Timed out after " + timeout + " seconds while waiting for element '" + element + "' to be displayed.";
             if(mustExist) {
@@ -59,18 +181,18 @@ public class WaitsUtil {
                 LogUtil.info(errorMessage, WaitsUtil.class);
             }
         }
+        return webElement;
     }
 
-    public void waitForElementToBeDisplayed(String element,By elementBy, boolean mustExist) throws Exception {
-        waitForElementToBeDisplayed(element, elementBy, mustExist, DEFAULT_TIMEOUT);
+    public WebElement waitForElementToBeDisplayed(String element,By elementBy, boolean mustExist) throws Exception {
+        return waitForElementToBeDisplayed(element, elementBy, mustExist, DEFAULT_TIMEOUT);
     }
 
     public WebElement waitForElementToBeClickable(String element, By elementBy, int timeout){
         WebElement webElement = null;
         try {
-            FluentWait<WebDriver> wait = getWait(timeout);
-            webElement = wait.until(ExpectedConditions.elementToBeClickable(elementBy));
-            LogUtil.info("Element '" + element + "' is clickable.", WaitsUtil.class);
+            webElement = untilElement("clickable", elementBy, WaitCondition.CLICKABLE, timeout, ExpectedConditions.elementToBeClickable(elementBy));
+            LogUtil.info("Element '{}' is clickable.", WaitsUtil.class, element);
         } catch (TimeoutException e) {
             LogUtil.logAndRethrow("Timed out after " + timeout + " seconds while waiting for element '" + element + "' to be clickable.", WaitsUtil.class, e);
         }
@@ -81,11 +203,47 @@ public class WaitsUtil {
         return waitForElementToBeClickable(element, elementBy, DEFAULT_TIMEOUT);
     }
 
+    // Returns the ready elements in the order given; elements waited on as INVISIBLE map to null.
+    public Map<String, WebElement> waitForElements(Map<String, By> elements, Map<String, WaitCondition> conditions, int timeout) throws Exception {
+        if(elements == null || elements.isEmpty()) throw new IllegalArgumentException("'elements' cannot be null or empty.");
+        for(String element: elements.keySet()){
+            if(conditions.get(element) == null) throw new IllegalArgumentException("No wait condition given for element '" + element + "'.");
+        }
+        Map<String, WebElement> ready = null;
+        List<String> missing = new ArrayList<>(elements.keySet());
+        try {
+            ready = untilAll(elements, conditions, timeout, missing);
+            LogUtil.info("Elements {} are ready.", WaitsUtil.class, elements.keySet());
+        } catch (TimeoutException e) {
+            List<String> timedOut = new ArrayList<>();
+            missing.forEach(element -> timedOut.add(element + " (" + conditions.get(element) + ")"));
+            String errorMessage = "Timed out after " + timeout + " seconds while waiting for elements " + timedOut + ".";
+            LogUtil.logAndRethrow(errorMessage, WaitsUtil.class, new TimeoutException(errorMessage, e));
+        }
+        return ready;
+    }
+
+    public Map<String, WebElement> waitForElements(Map<String, By> elements, Map<String, WaitCondition> conditions) throws Exception {
+        return waitForElements(elements, conditions, DEFAULT_TIMEOUT);
+    }
+
+    public void waitForPageToBeReady(int timeout) throws Exception {
+        try {
+            Map<String, Object> status = new PageReadyWait(driver).until(Duration.ofSeconds(timeout));
+            LogUtil.info("Page is ready (quiet for {} ms).", WaitsUtil.class, status.get("quietMillis"));
+        } catch (TimeoutException e) {
+            LogUtil.logAndRethrow("Timed out after " + timeout + " seconds while waiting for the page to be ready. " + e.getMessage(), WaitsUtil.class, e);
+        }
+    }
+
+    public void waitForPageToBeReady() throws Exception {
+        waitForPageToBeReady(DEFAULT_TIMEOUT);
+    }
+
     public void waitForFrameAndSwitchToIt(String element, By frame, int timeout) throws Exception {
         try{
-            FluentWait<WebDriver> wait = getWait(timeout);
-            wait.until(ExpectedConditions.frameToBeAvailableAndSwitchToIt(frame));
-            LogUtil.info("Switched to frame '" + element + "' after it became available.", WaitsUtil.class);
+            until("frame", Duration.ofSeconds(timeout), ExpectedConditions.frameToBeAvailableAndSwitchToIt(frame));
+            LogUtil.info("Switched to frame '{}' after it became available.", WaitsUtil.class, element);
         }catch (TimeoutException e){
             LogUtil.logAndRethrow("Timed out after " + timeout + " seconds while waiting for frame '" + element + "' to be available.", WaitsUtil.class, e);
         }
@@ -97,9 +255,8 @@ public class WaitsUtil {
 
     public void waitForElementToDisappear(String element,By elementBy, int timeout) throws Exception {
         try{
-            FluentWait<WebDriver> wait = getWait(timeout);
-            wait.until(ExpectedConditions.invisibilityOfElementLocated(elementBy));
-            LogUtil.info("Element '" + element + "' is invisible.", WaitsUtil.class);
+            untilElement("disappear", elementBy, WaitCondition.INVISIBLE, timeout, ExpectedConditions.invisibilityOfElementLocated(elementBy));
+            LogUtil.info("Element '{}' is invisible.", WaitsUtil.class, element);
         }catch (TimeoutException e){
             LogUtil.logAndRethrow("Timed out after " + timeout + " seconds while waiting for element '" + element +  "' to disappear.", WaitsUtil.class, e);
         }
@@ -0,0 +1,195 @@
+package testauto.com.ui.utils;
+
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import testauto.com.common.LogUtil;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Parked sessions keep the permit of the session that created them, so live browsers never exceed the pool size.
+// A leased session takes its permit over, and the permit is released when the pool quits the session.
+class WebSessionPool {
+
+    private final Map<String, Deque<WebSession>> idleSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdleSessions;
+    private final Semaphore sessionPermits;
+
+    WebSessionPool(int maxIdleSessions, Semaphore sessionPermits){
+        this.maxIdleSessions = maxIdleSessions;
+        this.sessionPermits = sessionPermits;
+    }
+
+    static class WebSession {
+        private final WebDriver driver;
+        private final String key;
+        private final long createdAt = System.nanoTime();
+        private int testsServed = 1;
+
+        WebSession(WebDriver driver, String key){
+            this.driver = driver;
+            this.key = key;
+        }
+
+        WebDriver getDriver(){
+            return driver;
+        }
+
+        String getKey(){
+            return key;
+        }
+
+        private boolean isWornOut(int maxTests, Duration maxAge){
+            return testsServed >= maxTests || Duration.ofNanos(System.nanoTime() - createdAt).compareTo(maxAge) >= 0;
+        }
+    }
+
+    WebSession lease(String key, int maxTests, Duration maxAge){
+        Deque<WebSession> sessions = idleSessions.get(key);
+        WebSession session;
+        while(sessions != null && (session = sessions.pollFirst()) != null){
+            idleCount.decrementAndGet();
+            if(session.isWornOut(maxTests, maxAge)){
+                LogUtil.info("Recycling warm session after {} tests.", WebSessionPool.class, session.testsServed);
+                quit(session);
+            }else if(!isHealthy(session)){
+                LogUtil.warn("Discarding warm session that failed its health check.", WebSessionPool.class);
+                quit(session);
+            }else{
+                session.testsServed++;
+                LogUtil.info("Reusing warm session for test {}.", WebSessionPool.class, session.testsServed);
+                return session;
+            }
+        }
+        return null;
+    }
+
+    void release(WebSession session, int maxTests, Duration maxAge){
+        if(!(session.driver instanceof HasCdp)){
+            LogUtil.info("Quitting session instead of parking it: clearing cookies and storage of every visited origin needs the DevTools protocol.", WebSessionPool.class);
+            quit(session);
+            return;
+        }
+        if(session.isWornOut(maxTests, maxAge)){
+            LogUtil.info("Recycling warm session after {} tests.", WebSessionPool.class, session.testsServed);
+            quit(session);
+            return;
+        }
+        if(idleCount.incrementAndGet() > maxIdleSessions){
+            idleCount.decrementAndGet();
+            quit(session);
+            return;
+        }
+        try{
+            reset(session.driver, (HasCdp) session.driver);
+        }catch (RuntimeException e){
+            idleCount.decrementAndGet();
+            LogUtil.warn("Discarding warm session that could not be reset: {}", WebSessionPool.class, e.getMessage());
+            quit(session);
+            return;
+        }
+        idleSessions.computeIfAbsent(session.key, key -> new ConcurrentLinkedDeque<>()).offerFirst(session);
+    }
+
+    void quitAll(){
+        List<WebSession> sessions = new ArrayList<>();
+        for(Deque<WebSession> idle: idleSessions.values()){
+            WebSession session;
+            while((session = idle.pollFirst()) != null){
+                idleCount.decrementAndGet();
+                sessions.add(session);
+            }
+        }
+        sessions.forEach(this::quit);
+    }
+
+    // Quits one idle session, of any configuration, to free its permit for a new session.
+    boolean evictIdle(){
+        for(Deque<WebSession> idle: idleSessions.values()){
+            WebSession session = idle.pollLast();
+            if(session != null){
+                idleCount.decrementAndGet();
+                LogUtil.info("Quitting idle warm session to make room for a new session.", WebSessionPool.class);
+                quit(session);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHealthy(WebSession session){
+        try{
+            return session.driver.getWindowHandle() != null;
+        }catch (WebDriverException e){
+            return false;
+        }
+    }
+
+    // Collects the origins of every open window's history and of every cookie, then clears all storage types of
+    // those origins (local and session storage, IndexedDB, cache storage, service workers, cookies) plus the HTTP
+    // cache. Origins only visited in windows the test already closed itself are not known here.
+    @SuppressWarnings("unchecked")
+    private static void reset(WebDriver driver, HasCdp cdp){
+        try{
+            driver.switchTo().alert().dismiss();
+        }catch (NoAlertPresentException ignored){
+        }
+
+        Set<String> origins = new TreeSet<>();
+        List<String> handles = new ArrayList<>(driver.getWindowHandles());
+        for(int i = handles.size() - 1; i >= 0; i--){
+            driver.switchTo().window(handles.get(i));
+            Map<String, Object> history = cdp.executeCdpCommand("Page.getNavigationHistory", Map.of());
+            for(Map<String, Object> entry: (List<Map<String, Object>>) history.get("entries")){
+                addOrigin(origins, String.valueOf(entry.get("url")));
+            }
+            if(i > 0) driver.close();
+        }
+        Map<String, Object> cookies = cdp.executeCdpCommand("Storage.getCookies", Map.of());
+        for(Map<String, Object> cookie: (List<Map<String, Object>>) cookies.get("cookies")){
+            String domain = String.valueOf(cookie.get("domain")).replaceFirst("^\\.", "");
+            origins.add("https://" + domain);
+            origins.add("http://" + domain);
+        }
+
+        for(String origin: origins){
+            cdp.executeCdpCommand("Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"));
+        }
+        cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+        cdp.executeCdpCommand("Network.clearBrowserCache", Map.of());
+        driver.get("about:blank");
+    }
+
+    private static void addOrigin(Set<String> origins, String url){
+        try{
+            URI uri = URI.create(url);
+            if(uri.getHost() == null || !("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))) return;
+            origins.add(uri.getScheme() + "://" + uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort()));
+        }catch (IllegalArgumentException ignored){
+            // Not a URL with an origin, e.g. about:blank or data: URLs.
+        }
+    }
+
+    private void quit(WebSession session){
+        try{
+            session.driver.quit();
+        }catch (WebDriverException e){
+            LogUtil.error("Error while quitting warm session.", WebSessionPool.class, e);
+        }finally {
+            sessionPermits.release();
+        }
+    }
+}